@@ -0,0 +1,149 @@
+package ticket.booking.bench;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.mindrot.jbcrypt.BCrypt;
+import ticket.booking.entities.Train;
+import ticket.booking.entities.User;
+import ticket.booking.service.AsyncBookingService;
+import ticket.booking.service.TrainService;
+import ticket.booking.storage.LocalDbStore;
+import ticket.booking.storage.StorageFormat;
+import ticket.booking.util.UserServiceUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Logical clients each doing login -> search -> book. The async variant pipelines every
+// client through AsyncBookingService. The blocking variant is not UserBookingService (which
+// is tied to one interactive session): it is a hand-written loop on a thread pool that, like
+// bookTrainSeat, rewrites trains and users after every booking, serialized by one global
+// lock. So the gap between the two mostly measures group commit against a save per
+// booking, not blocking against non-blocking I/O as such.
+// Run: gradle :app:bench -PbenchClass=AsyncServiceBenchmark [-PbenchArgs="10000 1000 200 30"]
+public class AsyncServiceBenchmark {
+
+    private static final String PASSWORD = "pw";
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int trainCount = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+        int blockingThreads = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        int maxSeconds = args.length > 3 ? Integer.parseInt(args[3]) : 30;
+
+        // Low BCrypt cost keeps the run short; both variants pay the same hashing cost
+        String hash = BCrypt.hashpw(PASSWORD, BCrypt.gensalt(4));
+        System.out.printf("%d logical clients, %d trains, %d cores%n",
+                clients, trainCount, Runtime.getRuntime().availableProcessors());
+
+        double blocking = runBlocking(clients, trainCount, hash, blockingThreads, maxSeconds);
+        double async = runAsync(clients, trainCount, hash);
+        System.out.printf("%-32s %10.0f requests/sec%n", "save per booking (" + blockingThreads + " threads)", blocking);
+        System.out.printf("%-32s %10.0f requests/sec%n", "async (group commit)", async);
+    }
+
+    private static double runBlocking(int clients, int trainCount, String hash, int threads, int maxSeconds)
+            throws Exception {
+        Fixture fixture = new Fixture(clients, trainCount, hash);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        AtomicInteger completed = new AtomicInteger();
+        Object fileLock = new Object();
+
+        long start = System.nanoTime();
+        for (int c = 0; c < clients; c++) {
+            User user = fixture.users.get(c);
+            long seed = c;
+            pool.execute(() -> {
+                Random random = new Random(seed);
+                if (!UserServiceUtil.checkPassword(PASSWORD, user.getHashedPassword())) return;
+                String[] route = BenchData.routeOf(fixture.trains.get(random.nextInt(fixture.trains.size())), random);
+                List<Train> found = fixture.trainService.searchTrains(route[0], route[1]);
+                Train train = found.get(random.nextInt(found.size()));
+                int row = random.nextInt(BenchData.SEAT_ROWS), col = random.nextInt(BenchData.SEAT_COLS);
+                synchronized (fileLock) {
+                    // Same shape as bookTrainSeat: mark the seat, rewrite trains, rewrite users
+                    if (train.getSeats().get(row).get(col) == 0) {
+                        train.getSeats().get(row).set(col, 1);
+                    }
+                    try {
+                        fixture.trainService.saveTrains();
+                        fixture.userStore.save(fixture.users);
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+                completed.incrementAndGet();
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(maxSeconds, TimeUnit.SECONDS);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        pool.shutdownNow();
+        pool.awaitTermination(60, TimeUnit.SECONDS);
+        fixture.delete();
+        return completed.get() / seconds;
+    }
+
+    private static double runAsync(int clients, int trainCount, String hash) throws Exception {
+        Fixture fixture = new Fixture(clients, trainCount, hash);
+        AtomicInteger completed = new AtomicInteger();
+
+        try (AsyncBookingService service = new AsyncBookingService(fixture.trainService, fixture.userStore)) {
+            long start = System.nanoTime();
+            List<CompletableFuture<?>> inFlight = new ArrayList<>(clients);
+            for (int c = 0; c < clients; c++) {
+                String name = fixture.users.get(c).getName();
+                Random random = new Random(c);
+                String[] route = BenchData.routeOf(fixture.trains.get(random.nextInt(fixture.trains.size())), random);
+                int row = random.nextInt(BenchData.SEAT_ROWS), col = random.nextInt(BenchData.SEAT_COLS);
+
+                inFlight.add(service.login(name, PASSWORD)
+                        .thenCompose(user -> service.searchTrains(route[0], route[1])
+                                .thenCompose(found -> service.book(user.orElseThrow(),
+                                        found.get(random.nextInt(found.size())), row, col)))
+                        .thenRun(completed::incrementAndGet));
+            }
+            CompletableFuture.allOf(inFlight.toArray(new CompletableFuture[0])).join();
+            double seconds = (System.nanoTime() - start) / 1e9;
+            fixture.delete();
+            return completed.get() / seconds;
+        }
+    }
+
+    private static final class Fixture {
+        final File dir;
+        final List<Train> trains;
+        final List<User> users;
+        final LocalDbStore<List<User>> userStore;
+        final TrainService trainService;
+
+        Fixture(int clients, int trainCount, String hash) throws IOException {
+            dir = Files.createTempDirectory("async-bench").toFile();
+            LocalDbStore<List<Train>> trainStore =
+                    new LocalDbStore<>(dir, "trains", StorageFormat.JSON, new TypeReference<List<Train>>() {});
+            trainStore.save(BenchData.trains(trainCount, 42));
+            userStore = new LocalDbStore<>(dir, "users", StorageFormat.JSON, new TypeReference<List<User>>() {});
+            userStore.save(BenchData.users(clients, hash));
+
+            trainService = new TrainService(trainStore);
+            trains = trainService.getTrains();
+            users = userStore.load();
+        }
+
+        void delete() {
+            File[] files = dir.listFiles();
+            if (files != null) {
+                for (File file : files) file.delete();
+            }
+            dir.delete();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package ticket.booking.bench;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import ticket.booking.entities.Ticket;
+import ticket.booking.entities.Train;
+import ticket.booking.entities.User;
+import ticket.booking.service.BookingHistoryService;
+import ticket.booking.service.BookingPage;
+import ticket.booking.storage.LocalDbStore;
+import ticket.booking.storage.StorageFormat;
+import ticket.booking.storage.TicketArchive;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+// Memory and latency for frequent travellers: every user has 10k past tickets and a
+// handful of upcoming ones, before and after tiering past trips into the archive.
+// Run: gradle :app:bench -PbenchClass=BookingHistoryBenchmark [-PbenchArgs="10000 20"] -PbenchHeap=2g
+public class BookingHistoryBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int historicalTickets = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int userCount = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        LocalDate today = LocalDate.now();
+
+        File dir = Files.createTempDirectory("history-bench").toFile();
+        LocalDbStore<List<User>> userStore =
+                new LocalDbStore<>(dir, "users", StorageFormat.JSON, new TypeReference<List<User>>() {});
+        BookingHistoryService history =
+                new BookingHistoryService(new TicketArchive(new File(dir, "archive"), StorageFormat.JSON));
+
+        userStore.save(users(userCount, historicalTickets, today));
+        Result before = measure(userStore, history, null);
+
+        List<User> users = userStore.load();
+        for (User user : users) {
+            history.archivePastTrips(user, today);
+        }
+        userStore.save(users);
+        // A fresh service, as at login, so the first archive page pays for reading the file
+        BookingHistoryService session =
+                new BookingHistoryService(new TicketArchive(new File(dir, "archive"), StorageFormat.JSON));
+        Result after = measure(userStore, session, users.get(0));
+
+        System.out.printf("%d users x %d past tickets (+5 upcoming each)%n", userCount, historicalTickets);
+        System.out.printf("%-34s %14s %14s%n", "", "untiered", "tiered");
+        System.out.printf("%-34s %14d %14d%n", "users file (KB)", before.fileKb, after.fileKb);
+        System.out.printf("%-34s %14.1f %14.1f%n", "heap after load (MB)", before.heapMb, after.heapMb);
+        System.out.printf("%-34s %14.1f %14.1f%n", "load users (ms)", before.loadMs, after.loadMs);
+        System.out.printf("%-34s %14.1f %14.1f%n", "save users (ms)", before.saveMs, after.saveMs);
+        System.out.printf("%-34s %14s %14.3f%n", "first page, upcoming only (ms)", "-", after.hotPageMs);
+        System.out.printf("%-34s %14s %14.2f%n", "first page incl. archive (ms)", "-", after.coldPageMs);
+        System.out.printf("%-34s %14s %14.2f%n", "page 100 incl. archive (ms)", "-", after.deepPageMs);
+    }
+
+    private static Result measure(LocalDbStore<List<User>> store, BookingHistoryService history, User sample)
+            throws Exception {
+        Result result = new Result();
+        result.fileKb = store.getFile().length() / 1024;
+
+        long heapBefore = usedHeap();
+        long start = System.nanoTime();
+        List<User> loaded = store.load();
+        result.loadMs = (System.nanoTime() - start) / 1e6;
+        result.heapMb = (usedHeap() - heapBefore) / 1024.0 / 1024.0;
+
+        start = System.nanoTime();
+        store.save(loaded);
+        result.saveMs = (System.nanoTime() - start) / 1e6;
+
+        if (sample != null) {
+            result.hotPageMs = time(() -> history.page(sample, null, 20, false));
+            long coldStart = System.nanoTime();
+            history.page(sample, null, 20, true);  // reads and sorts the archive once per session
+            result.coldPageMs = (System.nanoTime() - coldStart) / 1e6;
+            result.deepPageMs = time(() -> {
+                String cursor = null;
+                BookingPage page = null;
+                for (int i = 0; i < 100; i++) {
+                    page = history.page(sample, cursor, 20, true);
+                    cursor = page.getNextCursor();
+                }
+                return page;
+            }) / 100;
+        }
+        if (loaded.isEmpty()) System.out.println("nothing loaded?");
+        return result;
+    }
+
+    private static double time(PageQuery query) throws Exception {
+        query.run();  // warm-up
+        long start = System.nanoTime();
+        query.run();
+        return (System.nanoTime() - start) / 1e6;
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static List<User> users(int userCount, int pastTickets, LocalDate today) {
+        Train train = BenchData.trains(1, 1).get(0);
+        List<User> users = new ArrayList<>();
+        for (int u = 0; u < userCount; u++) {
+            List<Ticket> tickets = new ArrayList<>();
+            for (int t = 0; t < pastTickets + 5; t++) {
+                LocalDate date = t < pastTickets ? today.minusDays(pastTickets - t) : today.plusDays(t - pastTickets);
+                String source = train.getStations().get(0);
+                String destination = train.getStations().get(train.getStations().size() - 1);
+                tickets.add(new Ticket("u" + u + "-t" + t, "u" + u, source, destination, date.toString(),
+                        train, null, t % BenchData.SEAT_ROWS, t % BenchData.SEAT_COLS));
+            }
+            users.add(new User("u" + u, "traveller" + u, null, "hash", tickets));
+        }
+        return users;
+    }
+
+    private interface PageQuery {
+        BookingPage run() throws Exception;
+    }
+
+    private static final class Result {
+        long fileKb;
+        double heapMb, loadMs, saveMs, hotPageMs, coldPageMs, deepPageMs;
+    }
+}
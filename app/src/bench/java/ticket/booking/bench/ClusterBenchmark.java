@@ -0,0 +1,77 @@
+package ticket.booking.bench;
+
+import ticket.booking.cluster.ClusterClient;
+import ticket.booking.cluster.ClusterNode;
+import ticket.booking.entities.Train;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Book/cancel throughput of a localhost cluster with 1..4 nodes.
+// Run: gradle :app:bench -PbenchClass=ClusterBenchmark [-PbenchArgs="10000 32 5"]
+public class ClusterBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int trainCount = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int clientThreads = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        System.out.printf("%d trains, %d client threads, %ds per run, %d cores%n",
+                trainCount, clientThreads, seconds, Runtime.getRuntime().availableProcessors());
+        System.out.printf("%-6s %14s%n", "nodes", "ops/sec");
+
+        for (int nodeCount = 1; nodeCount <= 4; nodeCount++) {
+            List<ClusterNode> nodes = new ArrayList<>();
+            nodes.add(new ClusterNode(0, BenchData.trains(trainCount, 42)));
+            for (int n = 1; n < nodeCount; n++) {
+                ClusterNode node = new ClusterNode(0, List.of());
+                node.join(nodes.get(0).getNodeId());
+                nodes.add(node);
+            }
+
+            run(nodes, trainCount, clientThreads, 1);  // warm-up
+            double opsPerSec = run(nodes, trainCount, clientThreads, seconds);
+            System.out.printf("%-6d %14.0f%n", nodeCount, opsPerSec);
+
+            for (ClusterNode node : nodes) {
+                node.close();
+            }
+        }
+    }
+
+    // Clients spread over all nodes, each alternating book/cancel on random trains
+    private static double run(List<ClusterNode> nodes, int trainCount, int clientThreads, int seconds) throws Exception {
+        AtomicLong operations = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(clientThreads);
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+
+        for (int c = 0; c < clientThreads; c++) {
+            String nodeId = nodes.get(c % nodes.size()).getNodeId();
+            long seed = c;
+            new Thread(() -> {
+                Random random = new Random(seed);
+                long count = 0;
+                try (ClusterClient client = new ClusterClient(nodeId)) {
+                    while (System.nanoTime() < deadline) {
+                        String trainId = BenchData.trainId(random.nextInt(trainCount));
+                        int row = random.nextInt(BenchData.SEAT_ROWS);
+                        int col = random.nextInt(BenchData.SEAT_COLS);
+                        if (!client.book(trainId, row, col)) {
+                            client.cancel(trainId, row, col);
+                        }
+                        count++;
+                    }
+                } catch (Exception e) {
+                    System.out.println("Client failed: " + e.getMessage());
+                }
+                operations.addAndGet(count);
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        return operations.get() / (double) seconds;
+    }
+}
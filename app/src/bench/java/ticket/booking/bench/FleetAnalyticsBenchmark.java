@@ -0,0 +1,111 @@
+package ticket.booking.bench;
+
+import ticket.booking.analytics.FleetAnalytics;
+import ticket.booking.entities.Train;
+import ticket.booking.service.TrainService;
+import ticket.booking.storage.SeatInventoryFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+// Fleet analytics on a large fleet with a fork/join pool of 1..availableProcessors threads
+// (or 1..maxThreads). A plain walk over the List<List<Integer>> seat matrices is shown for reference.
+// With "mapped" the seats are captured from a SeatInventoryFile instead of the matrices.
+// Run: gradle :app:bench -PbenchClass=FleetAnalyticsBenchmark [-PbenchArgs="100000 rounds maxThreads [mapped]"]
+public class FleetAnalyticsBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int trainCount = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int cores = Runtime.getRuntime().availableProcessors();
+        int maxThreads = args.length > 2 ? Integer.parseInt(args[2]) : cores;
+
+        List<Train> trains = BenchData.trains(trainCount, 42);
+        Random random = new Random(5);
+        for (Train train : trains) {
+            for (List<Integer> row : train.getSeats()) {
+                for (int c = 0; c < row.size(); c++) {
+                    row.set(c, random.nextInt(2));
+                }
+            }
+        }
+        TrainService trainService = new TrainService(trains);
+        trainService.analytics(ForkJoinPool.commonPool());  // build the columnar routes once
+
+        SeatInventoryFile inventory = null;
+        if (args.length > 3 && args[3].equals("mapped")) {
+            Path file = Files.createTempFile("analytics-seats", ".bin");
+            file.toFile().deleteOnExit();
+            inventory = SeatInventoryFile.create(file, trains);
+        }
+
+        System.out.printf("%d trains, %d rounds, %d cores, seats from %s%n", trainCount, rounds, cores,
+                inventory == null ? "matrices" : "mapped inventory");
+        System.out.printf("sequential walk of seat matrices (occupancy only): %8.2f ms%n", sequentialWalk(trains, rounds));
+        System.out.printf("%-8s %12s %12s %14s %14s %12s%n",
+                "threads", "capture ms", "occupancy", "busiest pairs", "free by route", "total ms");
+
+        for (int threads = 1; threads <= maxThreads; threads++) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                run(trainService, inventory, pool, Math.max(1, rounds / 2));  // warm-up
+                double[] ms = run(trainService, inventory, pool, rounds);
+                System.out.printf("%-8d %12.2f %12.2f %14.2f %14.2f %12.2f%n",
+                        threads, ms[0], ms[1], ms[2], ms[3], ms[0] + ms[1] + ms[2] + ms[3]);
+            } finally {
+                pool.shutdown();
+            }
+        }
+        if (inventory != null) inventory.close();
+    }
+
+    // Average milliseconds for: capture, occupancy, busiest station pairs, free seats by route
+    private static double[] run(TrainService trainService, SeatInventoryFile inventory, ForkJoinPool pool, int rounds) {
+        double[] total = new double[4];
+        long checksum = 0;
+        for (int round = 0; round < rounds; round++) {
+            long start = System.nanoTime();
+            FleetAnalytics analytics = trainService.analytics(pool, inventory);
+            long captured = System.nanoTime();
+            checksum += (long) analytics.occupancy()[0];
+            long occupancy = System.nanoTime();
+            checksum += analytics.busiestStationPairs(10).size();
+            long pairs = System.nanoTime();
+            checksum += analytics.freeSeatsByRoute().size();
+            long routes = System.nanoTime();
+
+            total[0] += (captured - start) / 1e6;
+            total[1] += (occupancy - captured) / 1e6;
+            total[2] += (pairs - occupancy) / 1e6;
+            total[3] += (routes - pairs) / 1e6;
+        }
+        if (checksum == 0) System.out.println("nothing computed?");
+        for (int i = 0; i < total.length; i++) {
+            total[i] /= rounds;
+        }
+        return total;
+    }
+
+    private static double sequentialWalk(List<Train> trains, int rounds) {
+        double sum = 0;
+        long start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            for (Train train : trains) {
+                int booked = 0, seats = 0;
+                for (List<Integer> row : train.getSeats()) {
+                    for (Integer seat : row) {
+                        booked += seat;
+                        seats++;
+                    }
+                }
+                sum += booked / (double) seats;
+            }
+        }
+        if (sum < 0) System.out.println("impossible");
+        return (System.nanoTime() - start) / 1e6 / rounds;
+    }
+}
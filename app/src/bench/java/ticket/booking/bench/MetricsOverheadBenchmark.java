@@ -0,0 +1,80 @@
+package ticket.booking.bench;
+
+import ticket.booking.entities.Train;
+import ticket.booking.metrics.Metric;
+import ticket.booking.metrics.Metrics;
+import ticket.booking.service.TrainService;
+
+import java.util.List;
+import java.util.Random;
+
+// Measures what the always-on instrumentation costs.
+// Run: gradle :app:bench -PbenchClass=MetricsOverheadBenchmark [-PbenchArgs="10000 2000"]
+public class MetricsOverheadBenchmark {
+
+    public static void main(String[] args) {
+        int trainCount = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int searchesPerRound = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+
+        System.out.println("Raw timer cost (start + stop):");
+        System.out.printf("  metrics off: %6.1f ns/op%n", timerCost(false));
+        System.out.printf("  metrics on : %6.1f ns/op%n", timerCost(true));
+
+        List<Train> trains = BenchData.trains(trainCount, 42);
+        TrainService trainService = new TrainService(trains);
+        String[][] queries = new String[searchesPerRound][];
+        Random random = new Random(7);
+        for (int i = 0; i < searchesPerRound; i++) {
+            queries[i] = BenchData.routeOf(trains.get(random.nextInt(trains.size())), random);
+        }
+
+        // Warm up both paths, then interleave rounds so drift hits both equally
+        runSearches(trainService, queries, false);
+        runSearches(trainService, queries, true);
+
+        long offNanos = 0, onNanos = 0;
+        int rounds = 10;
+        for (int round = 0; round < rounds; round++) {
+            offNanos += runSearches(trainService, queries, false);
+            onNanos += runSearches(trainService, queries, true);
+        }
+
+        double offUs = offNanos / 1_000.0 / rounds / searchesPerRound;
+        double onUs = onNanos / 1_000.0 / rounds / searchesPerRound;
+        System.out.printf("%nSearch over %d trains (%d searches x %d rounds):%n", trainCount, searchesPerRound, rounds);
+        System.out.printf("  metrics off: %8.2f us/search%n", offUs);
+        System.out.printf("  metrics on : %8.2f us/search%n", onUs);
+        System.out.printf("  overhead   : %8.3f %%%n", (onUs - offUs) / offUs * 100);
+        System.out.println();
+        System.out.print(Metrics.dumpText());
+    }
+
+    private static double timerCost(boolean enabled) {
+        Metrics.setEnabled(enabled);
+        int iterations = 20_000_000;
+        for (int i = 0; i < iterations; i++) {
+            Metric.SEARCH_SCAN.stop(Metric.SEARCH_SCAN.start());
+        }
+        long begin = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            Metric.SEARCH_SCAN.stop(Metric.SEARCH_SCAN.start());
+        }
+        double cost = (System.nanoTime() - begin) / (double) iterations;
+        Metrics.resetAll();
+        return cost;
+    }
+
+    private static long runSearches(TrainService trainService, String[][] queries, boolean enabled) {
+        Metrics.setEnabled(enabled);
+        long found = 0;
+        long begin = System.nanoTime();
+        for (String[] query : queries) {
+            long start = Metric.SEARCH.start();
+            found += trainService.searchTrains(query[0], query[1]).size();
+            Metric.SEARCH.stop(start);
+        }
+        long elapsed = System.nanoTime() - begin;
+        if (found == 0) System.out.println("no results?");
+        return elapsed;
+    }
+}
@@ -0,0 +1,87 @@
+package ticket.booking.bench;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import ticket.booking.entities.Train;
+import ticket.booking.storage.LocalDbStore;
+import ticket.booking.storage.SeatInventoryFile;
+import ticket.booking.storage.StorageFormat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+// Startup time and per-booking latency: JSON train file vs memory-mapped seat inventory.
+// Run: gradle :app:bench -PbenchClass=SeatInventoryBenchmark [-PbenchArgs="100000"]
+public class SeatInventoryBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int trainCount = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+
+        File dir = Files.createTempDirectory("seat-bench").toFile();
+        List<Train> trains = BenchData.trains(trainCount, 42);
+        LocalDbStore<List<Train>> jsonStore =
+                new LocalDbStore<>(dir, "trains", StorageFormat.JSON, new TypeReference<List<Train>>() {});
+        jsonStore.save(trains);
+        Path seatFile = dir.toPath().resolve("seats.bin");
+        SeatInventoryFile.create(seatFile, trains).close();
+
+        // Startup: parse the whole JSON file vs map the file and read the index
+        long jsonStartup = Long.MAX_VALUE, mappedStartup = Long.MAX_VALUE;
+        List<Train> loaded = null;
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            loaded = jsonStore.load();
+            jsonStartup = Math.min(jsonStartup, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            SeatInventoryFile.open(seatFile).close();
+            mappedStartup = Math.min(mappedStartup, System.nanoTime() - start);
+        }
+
+        // Booking: mark the seat and rewrite the train file (what TrainService.addTrain does)
+        Random random = new Random(7);
+        int jsonBookings = 5;
+        long start = System.nanoTime();
+        for (int i = 0; i < jsonBookings; i++) {
+            Train train = loaded.get(random.nextInt(loaded.size()));
+            train.getSeats().get(random.nextInt(BenchData.SEAT_ROWS)).set(random.nextInt(BenchData.SEAT_COLS), 1);
+            jsonStore.save(loaded);
+        }
+        double jsonBookingUs = (System.nanoTime() - start) / 1_000.0 / jsonBookings;
+
+        // Booking: flip one bit in the mapped region, plus the cost of an explicit force()
+        double mappedBookingUs, forceUs;
+        try (SeatInventoryFile inventory = SeatInventoryFile.open(seatFile)) {
+            int claims = 1_000_000;
+            int seatsPerTrain = BenchData.SEAT_ROWS * BenchData.SEAT_COLS;
+            start = System.nanoTime();
+            for (int i = 0; i < claims; i++) {
+                int seat = random.nextInt(seatsPerTrain);
+                String trainId = BenchData.trainId(random.nextInt(trainCount));
+                if (!inventory.claim(trainId, seat / BenchData.SEAT_COLS, seat % BenchData.SEAT_COLS)) {
+                    inventory.release(trainId, seat / BenchData.SEAT_COLS, seat % BenchData.SEAT_COLS);
+                }
+            }
+            mappedBookingUs = (System.nanoTime() - start) / 1_000.0 / claims;
+
+            start = System.nanoTime();
+            inventory.claim(BenchData.trainId(0), 0, 0);
+            inventory.force();
+            forceUs = (System.nanoTime() - start) / 1_000.0;
+        }
+
+        System.out.printf("Trains: %d (JSON %d KB, seat file %d KB)%n", trainCount,
+                jsonStore.getFile().length() / 1024, seatFile.toFile().length() / 1024);
+        System.out.printf("%-26s %14s %14s%n", "", "JSON", "mapped");
+        System.out.printf("%-26s %14.2f %14.2f%n", "startup (ms)", jsonStartup / 1e6, mappedStartup / 1e6);
+        System.out.printf("%-26s %14.2f %14.3f%n", "booking latency (us)", jsonBookingUs, mappedBookingUs);
+        System.out.printf("%-26s %14s %14.2f%n", "single force() (us)", "-", forceUs);
+
+        jsonStore.getFile().delete();
+        seatFile.toFile().delete();
+        dir.delete();
+    }
+}
@@ -0,0 +1,65 @@
+package ticket.booking.bench;
+
+import ticket.booking.engine.ShardedBookingEngine;
+import ticket.booking.entities.Train;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+// Booking throughput of the sharded engine for 1..availableProcessors shards (or 1..maxShards).
+// Run: gradle :app:bench -PbenchClass=ShardedEngineBenchmark [-PbenchArgs="10000 2000000 maxShards"]
+public class ShardedEngineBenchmark {
+
+    private static final int WINDOW = 1024;  // outstanding requests per client thread
+
+    public static void main(String[] args) throws Exception {
+        int trainCount = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int requests = args.length > 1 ? Integer.parseInt(args[1]) : 2_000_000;
+        int cores = Runtime.getRuntime().availableProcessors();
+        int maxShards = args.length > 2 ? Integer.parseInt(args[2]) : cores;
+        int clients = Math.max(1, cores);
+
+        List<Train> trains = BenchData.trains(trainCount, 42);
+        System.out.printf("%d trains, %d requests, %d client threads, %d cores%n", trainCount, requests, clients, cores);
+        System.out.printf("%-8s %14s%n", "shards", "ops/sec");
+
+        for (int shards = 1; shards <= maxShards; shards++) {
+            try (ShardedBookingEngine engine = new ShardedBookingEngine(trains, shards)) {
+                run(engine, trainCount, requests / 10, clients);  // warm-up
+                double opsPerSec = run(engine, trainCount, requests, clients);
+                System.out.printf("%-8d %14.0f%n", shards, opsPerSec);
+            }
+        }
+    }
+
+    // Each client alternates book/cancel on random seats, keeping WINDOW requests in flight
+    private static double run(ShardedBookingEngine engine, int trainCount, int requests, int clients) throws Exception {
+        CountDownLatch done = new CountDownLatch(clients);
+        int perClient = requests / clients;
+        long start = System.nanoTime();
+        for (int c = 0; c < clients; c++) {
+            long seed = c;
+            new Thread(() -> {
+                Random random = new Random(seed);
+                @SuppressWarnings("unchecked")
+                CompletableFuture<Boolean>[] window = new CompletableFuture[WINDOW];
+                for (int i = 0; i < perClient; i++) {
+                    int slot = i % WINDOW;
+                    if (window[slot] != null) window[slot].join();
+                    String trainId = BenchData.trainId(random.nextInt(trainCount));
+                    int row = random.nextInt(BenchData.SEAT_ROWS);
+                    int col = random.nextInt(BenchData.SEAT_COLS);
+                    window[slot] = (i & 1) == 0 ? engine.book(trainId, row, col) : engine.cancel(trainId, row, col);
+                }
+                for (CompletableFuture<Boolean> future : window) {
+                    if (future != null) future.join();
+                }
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        return perClient * (double) clients / ((System.nanoTime() - start) / 1e9);
+    }
+}
@@ -0,0 +1,55 @@
+package ticket.booking.bench;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import ticket.booking.entities.Train;
+import ticket.booking.entities.User;
+import ticket.booking.storage.LocalDbStore;
+import ticket.booking.storage.StorageFormat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+// Compares file size, write time and load time of each storage format.
+// Run: gradle :app:bench -PbenchClass=StorageFormatBenchmark [-PbenchArgs="100000 1000000"] -PbenchHeap=4g
+public class StorageFormatBenchmark {
+
+    private static final String SAMPLE_HASH = "$2a$10$MqonEcizso4Re9iFEMajHOIHCUd5O3Q.XZX779C50ZnC/Hb6mirwW";
+
+    public static void main(String[] args) throws IOException {
+        int trainCount = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int userCount = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+
+        File dir = Files.createTempDirectory("storage-bench").toFile();
+        dir.deleteOnExit();
+
+        List<Train> trains = BenchData.trains(trainCount, 42);
+        List<User> users = BenchData.users(userCount, SAMPLE_HASH);
+
+        System.out.printf("%-7s %-7s %10s %12s %12s%n", "data", "format", "size(KB)", "write(ms)", "load(ms)");
+        for (StorageFormat format : StorageFormat.values()) {
+            run("trains", format, new LocalDbStore<>(dir, "trains", format, new TypeReference<List<Train>>() {}), trains);
+            run("users", format, new LocalDbStore<>(dir, "users", format, new TypeReference<List<User>>() {}), users);
+        }
+    }
+
+    private static <T> void run(String label, StorageFormat format, LocalDbStore<List<T>> store, List<T> data) throws IOException {
+        long bestWrite = Long.MAX_VALUE, bestLoad = Long.MAX_VALUE;
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            store.save(data);
+            bestWrite = Math.min(bestWrite, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            List<T> loaded = store.load();
+            bestLoad = Math.min(bestLoad, System.nanoTime() - start);
+            if (loaded.size() != data.size()) throw new IllegalStateException("Round trip lost records");
+        }
+
+        File file = store.getFile();
+        System.out.printf("%-7s %-7s %10d %12.1f %12.1f%n", label, format.getExtension(),
+                file.length() / 1024, bestWrite / 1e6, bestLoad / 1e6);
+        file.delete();
+    }
+}
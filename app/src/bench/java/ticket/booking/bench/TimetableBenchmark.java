@@ -0,0 +1,116 @@
+package ticket.booking.bench;
+
+import ticket.booking.entities.Train;
+import ticket.booking.service.TrainService;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Search throughput against the timetable snapshot, with and without an admin thread
+// re-publishing trains (reroutes) in the background. A full list scan is shown for reference.
+// Run: gradle :app:bench -PbenchClass=TimetableBenchmark [-PbenchArgs="100000 updatesPerSec seconds"]
+public class TimetableBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int trainCount = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int updatesPerSec = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        int readers = Runtime.getRuntime().availableProcessors();
+
+        List<Train> trains = BenchData.trains(trainCount, 42);
+        long start = System.nanoTime();
+        TrainService trainService = new TrainService(trains);
+        System.out.printf("%d trains, %d reader threads, snapshot built in %.0f ms%n",
+                trainCount, readers, (System.nanoTime() - start) / 1e6);
+
+        String[][] queries = new String[4096][];
+        Random random = new Random(7);
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = BenchData.routeOf(trains.get(random.nextInt(trains.size())), random);
+        }
+
+        System.out.printf("%-32s %14.0f searches/sec%n", "full list scan (before)", scanThroughput(trains, queries, seconds));
+        search(trainService, queries, readers, 0, 1);  // warm-up
+        System.out.printf("%-32s %14.0f searches/sec%n", "snapshot, no updates",
+                search(trainService, queries, readers, 0, seconds));
+        System.out.printf("%-32s %14.0f searches/sec%n", "snapshot, " + updatesPerSec + " updates/sec",
+                search(trainService, queries, readers, updatesPerSec, seconds));
+    }
+
+    private static double search(TrainService trainService, String[][] queries, int readers,
+                                 int updatesPerSec, int seconds) throws Exception {
+        AtomicBoolean done = new AtomicBoolean();
+        LongAdder searches = new LongAdder();
+        Thread[] threads = new Thread[readers];
+        for (int r = 0; r < readers; r++) {
+            int offset = r * 997;
+            threads[r] = new Thread(() -> {
+                long found = 0;
+                for (int i = offset; !done.get(); i++) {
+                    String[] query = queries[i & (queries.length - 1)];
+                    found += trainService.searchTrains(query[0], query[1]).size();
+                    searches.increment();
+                }
+                if (found == 0) System.out.println("no results?");
+            });
+            threads[r].start();
+        }
+
+        // Reroute random trains at a fixed rate, each one a full copy-on-write publish
+        Thread updater = null;
+        LongAdder updates = new LongAdder();
+        if (updatesPerSec > 0) {
+            updater = new Thread(() -> {
+                Random random = new Random(3);
+                List<Train> fresh = BenchData.trains(1024, 99);
+                long interval = TimeUnit.SECONDS.toNanos(1) / updatesPerSec;
+                long next = System.nanoTime();
+                while (!done.get()) {
+                    Train route = fresh.get(random.nextInt(fresh.size()));
+                    String trainId = BenchData.trainId(random.nextInt(trainService.getTrains().size()));
+                    trainService.addTrain(new Train(trainId, "0", BenchData.emptySeats(),
+                            route.getStationTimes(), route.getStations()));
+                    updates.increment();
+                    next += interval;
+                    long wait = next - System.nanoTime();
+                    if (wait > 0) LockSupport.parkNanos(wait);
+                }
+            });
+            updater.start();
+        }
+
+        long start = System.nanoTime();
+        Thread.sleep(TimeUnit.SECONDS.toMillis(seconds));
+        done.set(true);
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (updater != null) {
+            updater.join();
+            System.out.printf("  (%d updates applied)%n", updates.sum());
+        }
+        return searches.sum() / elapsed;
+    }
+
+    // What searchTrains did before: stream the whole list and indexOf both stations
+    private static double scanThroughput(List<Train> trains, String[][] queries, int seconds) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        long count = 0, found = 0;
+        while (System.nanoTime() < deadline) {
+            String[] query = queries[(int) (count & (queries.length - 1))];
+            for (Train train : trains) {
+                int from = train.getStations().indexOf(query[0]);
+                int to = train.getStations().indexOf(query[1]);
+                if (from != -1 && to != -1 && from < to) found++;
+            }
+            count++;
+        }
+        if (found == 0) System.out.println("no results?");
+        return count / (seconds * 1.0);
+    }
+}
@@ -0,0 +1,116 @@
+package ticket.booking.bench;
+
+import ticket.booking.engine.SeatMap;
+import ticket.booking.metrics.LatencyRecorder;
+import ticket.booking.waitlist.Waitlist;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Promotion latency under cancel churn: every train is full with a queue of waiters, and
+// client threads keep cancelling random seats (each one promotes the head of the queue)
+// and queueing new waiters. Latency runs from the start of release() to the listener call,
+// once with clients going flat out and once at a fixed cancellation rate.
+// Run: gradle :app:bench -PbenchClass=WaitlistBenchmark [-PbenchArgs="1000 50 200000 threads pacedRate"]
+public class WaitlistBenchmark {
+
+    private static final String DATE = "2026-01-15";
+
+    public static void main(String[] args) throws Exception {
+        int trainCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+        int waitersPerTrain = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int cancellations = args.length > 2 ? Integer.parseInt(args[2]) : 200_000;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Math.max(2, Runtime.getRuntime().availableProcessors());
+        int pacedRate = args.length > 4 ? Integer.parseInt(args[4]) : 5_000;
+
+        System.out.printf("%d trains x %d seats, %d waiters each, %d client threads%n",
+                trainCount, BenchData.SEAT_ROWS * BenchData.SEAT_COLS, waitersPerTrain, threads);
+        System.out.printf("%-36s %10s %10s %10s %10s %10s%n", "", "count", "p50 us", "p90 us", "p99 us", "max us");
+        run("saturated", trainCount, waitersPerTrain, cancellations, threads, 0);
+        run("paced " + pacedRate + "/s", trainCount, waitersPerTrain, pacedRate * 5, threads, pacedRate);
+    }
+
+    // One churn run on fresh trains; ratePerSec 0 means as fast as the clients can go
+    private static void run(String name, int trainCount, int waitersPerTrain, int cancellations, int threads,
+                            int ratePerSec) throws Exception {
+        SeatMap[] seats = new SeatMap[trainCount];
+        List<ConcurrentLinkedQueue<int[]>> held = new ArrayList<>();
+        for (int t = 0; t < trainCount; t++) {
+            seats[t] = new SeatMap(BenchData.SEAT_ROWS, BenchData.SEAT_COLS);
+            held.add(new ConcurrentLinkedQueue<>());
+            for (int s = 0; s < seats[t].capacity(); s++) {
+                seats[t].claim(s / BenchData.SEAT_COLS, s % BenchData.SEAT_COLS);
+                held.get(t).add(new int[]{s / BenchData.SEAT_COLS, s % BenchData.SEAT_COLS});
+            }
+        }
+
+        LatencyRecorder promotionLatency = new LatencyRecorder();
+        LatencyRecorder releaseCall = new LatencyRecorder();
+        AtomicLong userIds = new AtomicLong();
+        double seconds;
+        try (Waitlist waitlist = new Waitlist()) {
+            waitlist.addListener(promotion -> promotionLatency.record(System.nanoTime() - promotion.getReleasedAtNanos()));
+            for (int t = 0; t < trainCount; t++) {
+                for (int w = 0; w < waitersPerTrain; w++) {
+                    join(waitlist, t, seats[t], held.get(t), userIds);
+                }
+            }
+
+            Thread[] clients = new Thread[threads];
+            long intervalNanos = ratePerSec == 0 ? 0 : TimeUnit.SECONDS.toNanos(1) * threads / ratePerSec;
+            long begin = System.nanoTime();
+            for (int c = 0; c < threads; c++) {
+                long seed = c;
+                clients[c] = new Thread(() -> {
+                    Random random = new Random(seed);
+                    long next = System.nanoTime();
+                    for (int i = 0; i < cancellations / threads; i++) {
+                        if (intervalNanos > 0) {
+                            next += intervalNanos;
+                            long wait = next - System.nanoTime();
+                            if (wait > 0) LockSupport.parkNanos(wait);
+                        }
+                        int t = random.nextInt(trainCount);
+                        int[] seat = held.get(t).poll();
+                        if (seat == null) continue;
+                        long start = System.nanoTime();
+                        waitlist.release(BenchData.trainId(t), DATE, seat[0], seat[1],
+                                () -> seats[t].release(seat[0], seat[1]));
+                        releaseCall.record(System.nanoTime() - start);
+                        join(waitlist, t, seats[t], held.get(t), userIds);  // keep the queue length steady
+                    }
+                });
+                clients[c].start();
+            }
+            for (Thread client : clients) {
+                client.join();
+            }
+            seconds = (System.nanoTime() - begin) / 1e9;
+        }
+
+        System.out.printf("%s: %.0f cancellations/sec%n", name, releaseCall.getCount() / seconds);
+        print("  release() call", releaseCall);
+        print("  release -> listener", promotionLatency);
+    }
+
+    private static void join(Waitlist waitlist, int train, SeatMap seats, ConcurrentLinkedQueue<int[]> held,
+                             AtomicLong userIds) {
+        waitlist.join(BenchData.trainId(train), DATE, "user-" + userIds.incrementAndGet(),
+                () -> false,  // trains stay full: every freed seat is handed to a waiter
+                (row, col) -> {
+                    if (!seats.claim(row, col)) return false;
+                    held.add(new int[]{row, col});
+                    return true;
+                });
+    }
+
+    private static void print(String name, LatencyRecorder recorder) {
+        System.out.printf("%-36s %10d %10.1f %10.1f %10.1f %10.1f%n", name, recorder.getCount(),
+                recorder.getP50Micros(), recorder.getP90Micros(), recorder.getP99Micros(), recorder.getMaxMicros());
+    }
+}
@@ -2,6 +2,8 @@ package ticket.booking;
 
 import ticket.booking.entities.Train;
 import ticket.booking.entities.User;
+import ticket.booking.metrics.Metrics;
+import ticket.booking.metrics.MetricsReporter;
 import ticket.booking.service.UserBookingService;
 import ticket.booking.util.UserServiceUtil;
 
@@ -12,6 +14,12 @@ public class App {
 
     private static final Scanner sc = new Scanner(System.in);
     private static Train selectedTrain = null;
+    private static final int BOOKINGS_PAGE_SIZE = 5;
+
+    // Greeting shown when the app starts
+    public String getGreeting() {
+        return "Running Train Booking System";
+    }
 
     // Helper method to check if the service is initialized and user is logged in
     private static boolean isServiceAvailable(UserBookingService service) {
@@ -35,7 +43,11 @@ public class App {
     }
 
     public static void main(String[] args) {
-        System.out.println("Running Train Booking System");
+        System.out.println(new App().getGreeting());
+
+        // Expose hot-path metrics over JMX and optionally dump them periodically
+        Metrics.registerMBeans();
+        MetricsReporter.fromSystemProperties(System.out);
 
         UserBookingService userBookingService;
         try {
@@ -92,10 +104,14 @@ public class App {
                 }
 
                 case 3 -> {
-                    // Fetch user's booked tickets
+                    // Fetch user's booked tickets, one page at a time
                     if (isServiceAvailable(userBookingService)) {
+                        boolean includePast = prompt("Include past trips? (y/n):").equalsIgnoreCase("y");
                         System.out.println("Fetching your bookings...");
-                        userBookingService.fetchBookings();
+                        String cursor = userBookingService.fetchBookingPage(null, BOOKINGS_PAGE_SIZE, includePast);
+                        while (cursor != null && prompt("Show more? (y/n):").equalsIgnoreCase("y")) {
+                            cursor = userBookingService.fetchBookingPage(cursor, BOOKINGS_PAGE_SIZE, includePast);
+                        }
                     }
                 }
 
@@ -174,6 +190,9 @@ public class App {
 
                     boolean booked = userBookingService.bookTrainSeat(selectedTrain, row, col);
                     System.out.println(booked ? "Seat booked successfully!" : "Seat booking failed. It might already be booked.");
+                    if (!booked && prompt("Join the waitlist for this train? (y/n):").equalsIgnoreCase("y")) {
+                        userBookingService.joinWaitlist(selectedTrain);
+                    }
                     System.out.println("=".repeat(40));
                 }
 
@@ -181,7 +200,7 @@ public class App {
                     // Cancel booking
                     if (!isServiceAvailable(userBookingService)) break;
                     System.out.println("Cancelling your booking...");
-                    userBookingService.cancelBooking();
+                    userBookingService.cancelBooking(BOOKINGS_PAGE_SIZE);
                 }
 
                 case 7 -> {
@@ -0,0 +1,205 @@
+package ticket.booking.analytics;
+
+import ticket.booking.entities.Train;
+import ticket.booking.storage.SeatInventoryFile;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.IntToLongFunction;
+
+// Fleet-wide aggregations over a columnar view: FleetRoutes for the stops and one long[] of
+// seat bits captured from the trains' seat matrices, or straight from the mapped seat inventory
+// for the trains it holds. Every pass is split into fork/join tasks
+// over contiguous ranges of trains. Nothing is locked, so bookings carry on while a capture
+// runs; the figures are as of the moment each train's matrix was copied.
+public final class FleetAnalytics {
+
+    private static final int MIN_LEAF = 1024;  // trains per leaf task
+
+    private final FleetRoutes routes;
+    private final ForkJoinPool pool;
+    private final long[] seatBits;
+    private final int leafSize;
+
+    private FleetAnalytics(FleetRoutes routes, ForkJoinPool pool, long[] seatBits, int leafSize) {
+        this.routes = routes;
+        this.pool = pool;
+        this.seatBits = seatBits;
+        this.leafSize = leafSize;
+    }
+
+    // Copy the current seat matrices of all trains into bitmaps, in parallel on the given pool
+    public static FleetAnalytics capture(FleetRoutes routes, ForkJoinPool pool) {
+        return capture(routes, pool, null);
+    }
+
+    // As above, but trains held by the inventory (may be null) are read from its bitmaps, which
+    // is where their bookings live when -Dbooking.seats.file is set
+    public static FleetAnalytics capture(FleetRoutes routes, ForkJoinPool pool, SeatInventoryFile inventory) {
+        int trainCount = routes.trainCount();
+        int leafSize = Math.max(MIN_LEAF, trainCount / (pool.getParallelism() * 8));
+        long[] seatBits = new long[routes.seatWords()];
+        pool.invoke(new RangeTask<Void>(0, trainCount, leafSize, (from, to) -> {
+            for (int t = from; t < to; t++) {
+                if (inventory == null
+                        || !inventory.copySeatBits(routes.trainId(t), seatBits, routes.seatStart(t), routes.capacity(t))) {
+                    copySeats(routes.train(t), seatBits, routes.seatStart(t), routes.capacity(t));
+                }
+            }
+            return null;
+        }, (left, right) -> null));
+        return new FleetAnalytics(routes, pool, seatBits, leafSize);
+    }
+
+    FleetRoutes routes() {
+        return routes;
+    }
+
+    public int trainCount() {
+        return routes.trainCount();
+    }
+
+    public String trainId(int train) {
+        return routes.trainId(train);
+    }
+
+    public int bookedSeats(int train) {
+        int booked = 0;
+        for (int w = routes.seatStart(train); w < routes.seatEnd(train); w++) {
+            booked += Long.bitCount(seatBits[w]);
+        }
+        return booked;
+    }
+
+    // Booked fraction of each train's seats, indexed like the timetable (0 for trains without seats)
+    public double[] occupancy() {
+        double[] occupancy = new double[trainCount()];
+        invoke((from, to) -> {
+            for (int t = from; t < to; t++) {
+                int capacity = routes.capacity(t);
+                occupancy[t] = capacity == 0 ? 0 : bookedSeats(t) / (double) capacity;
+            }
+            return null;
+        }, (left, right) -> null);
+        return occupancy;
+    }
+
+    public long totalFreeSeats() {
+        return invoke((from, to) -> {
+            long free = 0;
+            for (int t = from; t < to; t++) {
+                free += routes.capacity(t) - bookedSeats(t);
+            }
+            return free;
+        }, Long::sum);
+    }
+
+    // Consecutive stops ranked by booked seats on the trains running between them
+    public List<StationPairTotal> busiestStationPairs(int limit) {
+        long[][] totals = invoke((from, to) -> {
+            long[][] partial = new long[2][routes.segmentCount()];  // booked seats, trains
+            for (int t = from; t < to; t++) {
+                int booked = bookedSeats(t);
+                for (int stop = routes.routeStart(t); stop < routes.routeEnd(t) - 1; stop++) {
+                    int segment = routes.segmentId(stop);
+                    partial[0][segment] += booked;
+                    partial[1][segment]++;
+                }
+            }
+            return partial;
+        }, FleetAnalytics::merge);
+        return ranked(totals, routes::segmentKey, limit);
+    }
+
+    // Free seats summed per route (first stop to last stop), most seats first
+    public List<StationPairTotal> freeSeatsByRoute() {
+        long[][] totals = invoke((from, to) -> {
+            long[][] partial = new long[2][routes.endpointCount()];  // free seats, trains
+            for (int t = from; t < to; t++) {
+                int endpoint = routes.endpointId(t);
+                if (endpoint < 0) continue;
+                partial[0][endpoint] += routes.capacity(t) - bookedSeats(t);
+                partial[1][endpoint]++;
+            }
+            return partial;
+        }, FleetAnalytics::merge);
+        return ranked(totals, routes::endpointKey, Integer.MAX_VALUE);
+    }
+
+    private <R> R invoke(Leaf<R> leaf, BinaryOperator<R> combine) {
+        return pool.invoke(new RangeTask<>(0, trainCount(), leafSize, leaf, combine));
+    }
+
+    // Row-major copy of a seat matrix into consecutive bits starting at word `offset`
+    private static void copySeats(Train train, long[] bits, int offset, int capacity) {
+        List<List<Integer>> seats = train.getSeats();
+        if (seats == null) return;
+        int bit = 0;
+        for (List<Integer> row : seats) {
+            for (Integer seat : row) {
+                if (bit == capacity) return;  // matrix grew since the routes were built
+                if (seat != null && seat != 0) bits[offset + (bit >>> 6)] |= 1L << (bit & 63);
+                bit++;
+            }
+        }
+    }
+
+    private static long[][] merge(long[][] left, long[][] right) {
+        for (int i = 0; i < left.length; i++) {
+            for (int j = 0; j < left[i].length; j++) {
+                left[i][j] += right[i][j];
+            }
+        }
+        return left;
+    }
+
+    // Non-empty pairs, highest total first (ties in id order)
+    private List<StationPairTotal> ranked(long[][] totals, IntToLongFunction keyOf, int limit) {
+        List<Integer> ids = new ArrayList<>();
+        for (int id = 0; id < totals[0].length; id++) {
+            if (totals[1][id] > 0) ids.add(id);
+        }
+        ids.sort(Comparator.<Integer>comparingLong(id -> -totals[0][id]).thenComparingInt(id -> id));
+        List<StationPairTotal> result = new ArrayList<>();
+        for (int id : ids.subList(0, Math.min(limit, ids.size()))) {
+            long key = keyOf.applyAsLong(id);
+            result.add(new StationPairTotal(routes.stationName(FleetRoutes.pairFrom(key)),
+                    routes.stationName(FleetRoutes.pairTo(key)), totals[0][id], (int) totals[1][id]));
+        }
+        return result;
+    }
+
+    private interface Leaf<R> {
+        R apply(int from, int to);
+    }
+
+    // Splits [from, to) in halves until ranges are at most leafSize trains, then combines the results
+    private static final class RangeTask<R> extends RecursiveTask<R> {
+
+        private final int from, to, leafSize;
+        private final Leaf<R> leaf;
+        private final BinaryOperator<R> combine;
+
+        RangeTask(int from, int to, int leafSize, Leaf<R> leaf, BinaryOperator<R> combine) {
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+            this.leaf = leaf;
+            this.combine = combine;
+        }
+
+        @Override
+        protected R compute() {
+            if (to - from <= leafSize) return leaf.apply(from, to);
+            int mid = (from + to) >>> 1;
+            RangeTask<R> left = new RangeTask<>(from, mid, leafSize, leaf, combine);
+            left.fork();
+            R right = new RangeTask<>(mid, to, leafSize, leaf, combine).compute();
+            return combine.apply(left.join(), right);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package ticket.booking.analytics;
+
+import ticket.booking.entities.Train;
+import ticket.booking.service.TimetableSnapshot;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Columnar copy of the route data of one timetable snapshot: every train's stops as station
+// ids in one flat int array, dense ids for each station pair (consecutive stops and first to
+// last stop) so aggregates fit in plain arrays, and where each train's seat bits start.
+// Like the snapshot it is immutable, so it is built once and reused until the timetable changes.
+public final class FleetRoutes {
+
+    private final TimetableSnapshot timetable;
+    private final Train[] trains;
+    private final String[] stationNames;
+    private final int[] routeOffsets;  // train t stops at routeStations[routeOffsets[t] .. routeOffsets[t + 1])
+    private final int[] routeStations;
+    private final int[] seatOffsets;   // train t's seat bits are words seatOffsets[t] .. seatOffsets[t + 1]
+    private final int[] capacity;
+    private final int[] segmentIds;    // per stop: id of the pair (this stop, next stop), -1 on the last stop
+    private final long[] segmentKeys;  // segment id -> pair key
+    private final int[] endpointIds;   // per train: id of the pair (first stop, last stop), -1 if fewer than 2 stops
+    private final long[] endpointKeys; // endpoint id -> pair key
+
+    private FleetRoutes(TimetableSnapshot timetable, Train[] trains, String[] stationNames, int[] routeOffsets,
+                        int[] routeStations, int[] seatOffsets, int[] capacity,
+                        int[] segmentIds, long[] segmentKeys, int[] endpointIds, long[] endpointKeys) {
+        this.timetable = timetable;
+        this.trains = trains;
+        this.stationNames = stationNames;
+        this.routeOffsets = routeOffsets;
+        this.routeStations = routeStations;
+        this.seatOffsets = seatOffsets;
+        this.capacity = capacity;
+        this.segmentIds = segmentIds;
+        this.segmentKeys = segmentKeys;
+        this.endpointIds = endpointIds;
+        this.endpointKeys = endpointKeys;
+    }
+
+    public static FleetRoutes of(TimetableSnapshot timetable) {
+        Train[] trains = timetable.getTrains().toArray(new Train[0]);
+        int n = trains.length;
+        Map<String, Integer> stationIds = new HashMap<>();
+        int[] routeOffsets = new int[n + 1];
+        int[] seatOffsets = new int[n + 1];
+        int[] capacity = new int[n];
+
+        for (int t = 0; t < n; t++) {
+            List<String> stations = trains[t].getStations();
+            routeOffsets[t + 1] = routeOffsets[t] + (stations == null ? 0 : stations.size());
+            List<List<Integer>> seats = trains[t].getSeats();
+            if (seats != null) {
+                for (List<Integer> row : seats) {
+                    capacity[t] += row.size();
+                }
+            }
+            seatOffsets[t + 1] = seatOffsets[t] + (capacity[t] + 63) / 64;
+        }
+
+        int[] routeStations = new int[routeOffsets[n]];
+        for (int t = 0; t < n; t++) {
+            List<String> stations = trains[t].getStations();
+            for (int s = 0; s < routeOffsets[t + 1] - routeOffsets[t]; s++) {
+                routeStations[routeOffsets[t] + s] = stationIds.computeIfAbsent(stations.get(s), name -> stationIds.size());
+            }
+        }
+        String[] stationNames = new String[stationIds.size()];
+        stationIds.forEach((name, id) -> stationNames[id] = name);
+
+        Map<Long, Integer> segments = new HashMap<>();
+        Map<Long, Integer> endpoints = new HashMap<>();
+        int[] segmentIds = new int[routeStations.length];
+        int[] endpointIds = new int[n];
+        for (int t = 0; t < n; t++) {
+            int start = routeOffsets[t], end = routeOffsets[t + 1];
+            for (int stop = start; stop < end; stop++) {
+                segmentIds[stop] = stop + 1 < end ? denseId(segments, pairKey(routeStations[stop], routeStations[stop + 1])) : -1;
+            }
+            endpointIds[t] = end - start >= 2 ? denseId(endpoints, pairKey(routeStations[start], routeStations[end - 1])) : -1;
+        }
+
+        return new FleetRoutes(timetable, trains, stationNames, routeOffsets, routeStations, seatOffsets, capacity,
+                segmentIds, keysById(segments), endpointIds, keysById(endpoints));
+    }
+
+    static long pairKey(int from, int to) {
+        return (long) from << 32 | to;
+    }
+
+    static int pairFrom(long key) {
+        return (int) (key >>> 32);
+    }
+
+    static int pairTo(long key) {
+        return (int) key;
+    }
+
+    private static int denseId(Map<Long, Integer> ids, long key) {
+        return ids.computeIfAbsent(key, k -> ids.size());
+    }
+
+    private static long[] keysById(Map<Long, Integer> ids) {
+        long[] keys = new long[ids.size()];
+        ids.forEach((key, id) -> keys[id] = key);
+        return keys;
+    }
+
+    // The snapshot this view was built from
+    public TimetableSnapshot getTimetable() {
+        return timetable;
+    }
+
+    public int trainCount() {
+        return trains.length;
+    }
+
+    public String trainId(int train) {
+        return trains[train].getTrainId();
+    }
+
+    public String stationName(int station) {
+        return stationNames[station];
+    }
+
+    Train train(int train) {
+        return trains[train];
+    }
+
+    int routeStart(int train) {
+        return routeOffsets[train];
+    }
+
+    int routeEnd(int train) {
+        return routeOffsets[train + 1];
+    }
+
+    int segmentId(int stop) {
+        return segmentIds[stop];
+    }
+
+    int segmentCount() {
+        return segmentKeys.length;
+    }
+
+    long segmentKey(int segment) {
+        return segmentKeys[segment];
+    }
+
+    int endpointId(int train) {
+        return endpointIds[train];
+    }
+
+    int endpointCount() {
+        return endpointKeys.length;
+    }
+
+    long endpointKey(int endpoint) {
+        return endpointKeys[endpoint];
+    }
+
+    int seatStart(int train) {
+        return seatOffsets[train];
+    }
+
+    int seatEnd(int train) {
+        return seatOffsets[train + 1];
+    }
+
+    int seatWords() {
+        return seatOffsets[trains.length];
+    }
+
+    int capacity(int train) {
+        return capacity[train];
+    }
+}
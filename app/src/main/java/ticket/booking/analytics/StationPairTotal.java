@@ -0,0 +1,38 @@
+package ticket.booking.analytics;
+
+// A value summed over the trains that serve a pair of stations
+public class StationPairTotal {
+
+    private final String from;
+    private final String to;
+    private final long total;
+    private final int trains;
+
+    public StationPairTotal(String from, String to, long total, int trains) {
+        this.from = from;
+        this.to = to;
+        this.total = total;
+        this.trains = trains;
+    }
+
+    public String getFrom() {
+        return from;
+    }
+
+    public String getTo() {
+        return to;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public int getTrains() {
+        return trains;
+    }
+
+    @Override
+    public String toString() {
+        return from + " -> " + to + ": " + total + " (" + trains + " trains)";
+    }
+}
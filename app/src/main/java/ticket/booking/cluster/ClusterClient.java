@@ -0,0 +1,161 @@
+package ticket.booking.cluster;
+
+import ticket.booking.entities.Train;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static ticket.booking.cluster.ClusterProtocol.*;
+
+// TCP client for one cluster node ("host:port"). Connections are pooled, so a client can
+// be shared by many threads; each call borrows a connection for one request/response.
+public class ClusterClient implements AutoCloseable {
+
+    private final String host;
+    private final int port;
+    private final ConcurrentLinkedQueue<Connection> idle = new ConcurrentLinkedQueue<>();
+
+    public ClusterClient(String nodeId) {
+        int colon = nodeId.lastIndexOf(':');
+        this.host = nodeId.substring(0, colon);
+        this.port = Integer.parseInt(nodeId.substring(colon + 1));
+    }
+
+    // Book a seat on any train in the cluster; the node forwards to the owner
+    public boolean book(String trainId, int row, int col) throws IOException {
+        return seatCall(BOOK, trainId, row, col);
+    }
+
+    // Free a seat on any train in the cluster
+    public boolean cancel(String trainId, int row, int col) throws IOException {
+        return seatCall(CANCEL, trainId, row, col);
+    }
+
+    // Search every node and merge the results
+    public List<Train> search(String source, String destination) throws IOException {
+        return searchCall(SEARCH, source, destination);
+    }
+
+    boolean bookLocal(String trainId, int row, int col) throws IOException {
+        return seatCall(BOOK_LOCAL, trainId, row, col);
+    }
+
+    boolean cancelLocal(String trainId, int row, int col) throws IOException {
+        return seatCall(CANCEL_LOCAL, trainId, row, col);
+    }
+
+    List<Train> searchLocal(String source, String destination) throws IOException {
+        return searchCall(SEARCH_LOCAL, source, destination);
+    }
+
+    // Ask this node to admit a new member; returns the resulting member list
+    List<String> join(String nodeId) throws IOException {
+        return call(out -> {
+            out.writeByte(JOIN);
+            out.writeUTF(nodeId);
+        }, ClusterProtocol::readStrings);
+    }
+
+    void members(List<String> members) throws IOException {
+        call(out -> {
+            out.writeByte(MEMBERS);
+            writeStrings(out, members);
+        }, in -> null);
+    }
+
+    void putTrains(List<Train> trains) throws IOException {
+        call(out -> {
+            out.writeByte(PUT_TRAINS);
+            writeTrains(out, trains);
+        }, in -> null);
+    }
+
+    @Override
+    public void close() {
+        Connection connection;
+        while ((connection = idle.poll()) != null) {
+            connection.close();
+        }
+    }
+
+    private boolean seatCall(byte command, String trainId, int row, int col) throws IOException {
+        return call(out -> {
+            out.writeByte(command);
+            out.writeUTF(trainId);
+            out.writeInt(row);
+            out.writeInt(col);
+        }, DataInputStream::readBoolean);
+    }
+
+    private List<Train> searchCall(byte command, String source, String destination) throws IOException {
+        return call(out -> {
+            out.writeByte(command);
+            out.writeUTF(source);
+            out.writeUTF(destination);
+        }, ClusterProtocol::readTrains);
+    }
+
+    private <T> T call(RequestWriter request, ResponseReader<T> response) throws IOException {
+        Connection connection = idle.poll();
+        if (connection == null) {
+            connection = new Connection(host, port);
+        }
+        boolean reusable = false;
+        try {
+            request.write(connection.out);
+            connection.out.flush();
+            if (connection.in.readByte() == ERROR) {
+                String message = connection.in.readUTF();
+                reusable = true;
+                throw new IOException("Remote error from " + host + ":" + port + ": " + message);
+            }
+            T result = response.read(connection.in);
+            reusable = true;
+            return result;
+        } finally {
+            // A connection that failed mid-exchange may hold half a message, so drop it
+            if (reusable) {
+                idle.offer(connection);
+            } else {
+                connection.close();
+            }
+        }
+    }
+
+    private interface RequestWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private interface ResponseReader<T> {
+        T read(DataInputStream in) throws IOException;
+    }
+
+    private static final class Connection {
+        final Socket socket;
+        final DataInputStream in;
+        final DataOutputStream out;
+
+        Connection(String host, int port) throws IOException {
+            socket = new Socket();
+            socket.setTcpNoDelay(true);
+            socket.connect(new InetSocketAddress(host, port), 5_000);
+            in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // nothing left to release
+            }
+        }
+    }
+}
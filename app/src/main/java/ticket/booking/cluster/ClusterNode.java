@@ -0,0 +1,374 @@
+package ticket.booking.cluster;
+
+import ticket.booking.entities.Train;
+import ticket.booking.service.TimetableSnapshot;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static ticket.booking.cluster.ClusterProtocol.*;
+
+// One booking node in cluster mode. Trains are partitioned across nodes by consistent
+// hashing on trainId: book/cancel are forwarded to the owning node, searches fan out to
+// every node and the results are merged. When a node joins or leaves, every node
+// recomputes ownership and hands the trains it no longer owns to their new owner.
+// While a train is in flight, requests for it fail with an error (ClusterClient throws
+// IOException) instead of answering "seat taken", so callers should retry them. Nodes
+// are expected to join and leave one at a time.
+public class ClusterNode implements AutoCloseable {
+
+    private final ServerSocket serverSocket;
+    private final String nodeId;
+    private final ExecutorService workers;
+    private final Map<String, Train> trains = new ConcurrentHashMap<>();  // trains this node owns
+    private final Object indexLock = new Object();  // never held across network calls
+    private volatile TimetableSnapshot timetable;  // route index over `trains`, rebuilt when trains move
+    private final Map<String, ClusterClient> peers = new ConcurrentHashMap<>();
+    private volatile ConsistentHashRing ring;
+    private volatile ConsistentHashRing previousRing;  // ring before the last rebalance
+    private volatile boolean running = true;
+    private volatile boolean joining;
+
+    // Start a single-node cluster on localhost; port 0 picks a free port
+    public ClusterNode(int port, List<Train> initialTrains) throws IOException {
+        this(InetAddress.getLoopbackAddress().getHostAddress(), port, initialTrains);
+    }
+
+    public ClusterNode(String host, int port, List<Train> initialTrains) throws IOException {
+        serverSocket = new ServerSocket();
+        serverSocket.bind(new InetSocketAddress(host, port));
+        nodeId = host + ":" + serverSocket.getLocalPort();
+        ring = new ConsistentHashRing(List.of(nodeId));
+        previousRing = ring;
+        for (Train train : initialTrains) {
+            trains.putIfAbsent(train.getTrainId(), train);
+        }
+        reindex();
+
+        workers = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "cluster-" + nodeId);
+            thread.setDaemon(true);
+            return thread;
+        });
+        workers.execute(this::acceptLoop);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public List<String> getMembers() {
+        return ring.memberList();
+    }
+
+    public int ownedTrainCount() {
+        return trains.size();
+    }
+
+    // Join the cluster that seedNodeId belongs to
+    public void join(String seedNodeId) throws IOException {
+        joining = true;
+        try {
+            peer(seedNodeId).join(nodeId);
+        } finally {
+            joining = false;
+        }
+    }
+
+    // Hand every owned train to the remaining nodes, then shut down
+    public void leave() throws IOException {
+        ConsistentHashRing remaining = ring.without(nodeId);
+        for (String member : remaining.getMembers()) {
+            peer(member).members(remaining.memberList());
+        }
+        applyMembers(remaining);
+        close();
+    }
+
+    public boolean book(String trainId, int row, int col) throws IOException {
+        String owner = ring.ownerOf(trainId);
+        return owner.equals(nodeId) ? bookLocally(trainId, row, col) : peer(owner).bookLocal(trainId, row, col);
+    }
+
+    public boolean cancel(String trainId, int row, int col) throws IOException {
+        String owner = ring.ownerOf(trainId);
+        return owner.equals(nodeId) ? cancelLocally(trainId, row, col) : peer(owner).cancelLocal(trainId, row, col);
+    }
+
+    // Query every member in parallel and merge the matching trains
+    public List<Train> search(String source, String destination) throws IOException {
+        List<Future<List<Train>>> remote = new ArrayList<>();
+        for (String member : ring.getMembers()) {
+            if (!member.equals(nodeId)) {
+                remote.add(workers.submit(() -> peer(member).searchLocal(source, destination)));
+            }
+        }
+
+        List<Train> results = new ArrayList<>(searchLocally(source, destination));
+        for (Future<List<Train>> future : remote) {
+            try {
+                results.addAll(future.get());
+            } catch (ExecutionException e) {
+                throw new IOException("Search fan-out failed: " + e.getCause().getMessage(), e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Search interrupted", e);
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        serverSocket.close();
+        workers.shutdownNow();
+        peers.values().forEach(ClusterClient::close);
+    }
+
+    private boolean bookLocally(String trainId, int row, int col) throws IOException {
+        Train train = trains.get(trainId);
+        if (train == null) return missing(trainId);
+        synchronized (train) {
+            if (trains.get(trainId) != train) return missing(trainId);  // handed off meanwhile
+            List<List<Integer>> seats = train.getSeats();
+            if (row < 0 || row >= seats.size() || col < 0 || col >= seats.get(row).size()
+                    || seats.get(row).get(col) != 0) {
+                return false;
+            }
+            seats.get(row).set(col, 1);
+            return true;
+        }
+    }
+
+    private boolean cancelLocally(String trainId, int row, int col) throws IOException {
+        Train train = trains.get(trainId);
+        if (train == null) return missing(trainId);
+        synchronized (train) {
+            if (trains.get(trainId) != train) return missing(trainId);
+            List<List<Integer>> seats = train.getSeats();
+            if (row < 0 || row >= seats.size() || col < 0 || col >= seats.get(row).size()
+                    || seats.get(row).get(col) == 0) {
+                return false;
+            }
+            seats.get(row).set(col, 0);
+            return true;
+        }
+    }
+
+    // Answer for a train this node does not hold. It is only truly unknown if this node owned
+    // it both before and after the last rebalance; otherwise it is on its way here or has
+    // already left, and the caller has to retry.
+    private boolean missing(String trainId) throws IOException {
+        ConsistentHashRing current = ring;
+        if (nodeId.equals(current.ownerOf(trainId)) && nodeId.equals(previousRing.ownerOf(trainId))) {
+            return false;
+        }
+        throw new IOException("Train " + trainId + " is being handed off, retry");
+    }
+
+    private List<Train> searchLocally(String source, String destination) {
+        return timetable.search(source, destination);
+    }
+
+    // Rebuild the local route index after trains moved in or out
+    private void reindex() {
+        synchronized (indexLock) {
+            timetable = TimetableSnapshot.of(new ArrayList<>(trains.values()));
+        }
+    }
+
+    // Seed side of a join: publish the new member list to everyone, then rebalance here
+    private synchronized List<String> admit(String joiningNodeId) throws IOException {
+        ConsistentHashRing updated = ring.with(joiningNodeId);
+        for (String member : updated.getMembers()) {
+            if (!member.equals(nodeId)) {
+                peer(member).members(updated.memberList());
+            }
+        }
+        applyMembers(updated);
+        return updated.memberList();
+    }
+
+    // Switch to a new ring and push trains owned by someone else to their new owner
+    private synchronized void applyMembers(ConsistentHashRing updated) throws IOException {
+        // A joining node's own single-node ring says nothing about where trains were; the
+        // cluster's ring before the join does
+        previousRing = joining ? updated.without(nodeId) : ring;
+        ring = updated;
+        Map<String, List<Train>> moving = new HashMap<>();
+        for (Train train : trains.values()) {
+            String owner = updated.ownerOf(train.getTrainId());
+            if (owner != null && !owner.equals(nodeId)) {
+                // Detach under the train's lock: a booking either lands before this and travels
+                // with the train, or sees it gone and fails with a retryable error. Nothing
+                // changes a detached train, so it can be serialized afterwards as is.
+                synchronized (train) {
+                    trains.remove(train.getTrainId(), train);
+                }
+                moving.computeIfAbsent(owner, k -> new ArrayList<>()).add(train);
+            }
+        }
+        if (!moving.isEmpty()) reindex();
+        IOException failure = null;
+        for (Map.Entry<String, List<Train>> entry : moving.entrySet()) {
+            try {
+                peer(entry.getKey()).putTrains(entry.getValue());
+            } catch (IOException e) {
+                // Keep the trains rather than lose their bookings; they stay unreachable until
+                // the next rebalance, but nothing is sold twice
+                for (Train train : entry.getValue()) {
+                    trains.putIfAbsent(train.getTrainId(), train);
+                }
+                failure = e;
+            }
+        }
+        if (failure != null) reindex();
+        for (String peerId : new ArrayList<>(peers.keySet())) {
+            if (!updated.getMembers().contains(peerId)) {
+                ClusterClient client = peers.remove(peerId);
+                if (client != null) client.close();
+            }
+        }
+        if (failure != null) throw failure;
+    }
+
+    private ClusterClient peer(String peerId) {
+        return peers.computeIfAbsent(peerId, ClusterClient::new);
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                workers.execute(() -> serve(socket));
+            } catch (IOException e) {
+                if (running) {
+                    System.out.println("Cluster node " + nodeId + " accept failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    // Handle requests on one connection until the peer disconnects
+    private void serve(Socket socket) {
+        try (socket) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            while (running) {
+                byte command;
+                try {
+                    command = in.readByte();
+                } catch (EOFException e) {
+                    return;
+                }
+                handle(command, in, out);
+                out.flush();
+            }
+        } catch (IOException e) {
+            if (running) {
+                System.out.println("Cluster node " + nodeId + " connection error: " + e.getMessage());
+            }
+        }
+    }
+
+    // Read a request, run it, and write either OK + payload or ERROR + message
+    private void handle(byte command, DataInputStream in, DataOutputStream out) throws IOException {
+        Reply reply;
+        switch (command) {
+            case BOOK, CANCEL, BOOK_LOCAL, CANCEL_LOCAL -> {
+                String trainId = in.readUTF();
+                int row = in.readInt();
+                int col = in.readInt();
+                reply = respond(() -> {
+                    boolean result = switch (command) {
+                        case BOOK -> book(trainId, row, col);
+                        case CANCEL -> cancel(trainId, row, col);
+                        case BOOK_LOCAL -> bookLocally(trainId, row, col);
+                        default -> cancelLocally(trainId, row, col);
+                    };
+                    return o -> o.writeBoolean(result);
+                });
+            }
+            case SEARCH, SEARCH_LOCAL -> {
+                String source = in.readUTF();
+                String destination = in.readUTF();
+                reply = respond(() -> {
+                    List<Train> result = command == SEARCH
+                            ? search(source, destination)
+                            : searchLocally(source, destination);
+                    return o -> writeTrains(o, result);
+                });
+            }
+            case JOIN -> {
+                String joiningNodeId = in.readUTF();
+                reply = respond(() -> {
+                    List<String> members = admit(joiningNodeId);
+                    return o -> writeStrings(o, members);
+                });
+            }
+            case MEMBERS -> {
+                List<String> members = readStrings(in);
+                reply = respond(() -> {
+                    applyMembers(new ConsistentHashRing(members));
+                    return o -> {};
+                });
+            }
+            case PUT_TRAINS -> {
+                List<Train> incoming = readTrains(in);
+                for (Train train : incoming) {
+                    trains.put(train.getTrainId(), train);
+                }
+                reindex();
+                reply = ok(o -> {});
+            }
+            default -> throw new IOException("Unknown command " + command);
+        }
+        reply.writeTo(out);
+    }
+
+    private Reply respond(Action action) {
+        try {
+            return ok(action.run());
+        } catch (IOException | RuntimeException e) {
+            String message = String.valueOf(e.getMessage());
+            return o -> {
+                o.writeByte(ERROR);
+                o.writeUTF(message);
+            };
+        }
+    }
+
+    private static Reply ok(Reply payload) {
+        return o -> {
+            o.writeByte(OK);
+            payload.writeTo(o);
+        };
+    }
+
+    private interface Reply {
+        void writeTo(DataOutputStream out) throws IOException;
+    }
+
+    private interface Action {
+        Reply run() throws IOException;
+    }
+}
@@ -0,0 +1,65 @@
+package ticket.booking.cluster;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ticket.booking.entities.Train;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Wire format between cluster nodes and clients. Every request is a command byte followed
+// by its fields; every response starts with a status byte. Train lists travel as
+// length-prefixed JSON so the entity mapping stays in one place.
+final class ClusterProtocol {
+
+    // Client-facing commands, routed by the receiving node
+    static final byte BOOK = 1;
+    static final byte CANCEL = 2;
+    static final byte SEARCH = 3;
+
+    // Node-to-node commands, always answered locally
+    static final byte BOOK_LOCAL = 10;
+    static final byte CANCEL_LOCAL = 11;
+    static final byte SEARCH_LOCAL = 12;
+    static final byte JOIN = 13;
+    static final byte MEMBERS = 14;
+    static final byte PUT_TRAINS = 15;
+
+    static final byte OK = 0;
+    static final byte ERROR = 1;
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private ClusterProtocol() {}
+
+    static void writeTrains(DataOutputStream out, List<Train> trains) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(trains);
+        out.writeInt(json.length);
+        out.write(json);
+    }
+
+    static List<Train> readTrains(DataInputStream in) throws IOException {
+        byte[] json = new byte[in.readInt()];
+        in.readFully(json);
+        return objectMapper.readValue(json, new TypeReference<List<Train>>() {});
+    }
+
+    static void writeStrings(DataOutputStream out, List<String> values) throws IOException {
+        out.writeInt(values.size());
+        for (String value : values) {
+            out.writeUTF(value);
+        }
+    }
+
+    static List<String> readStrings(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(in.readUTF());
+        }
+        return values;
+    }
+}
@@ -0,0 +1,63 @@
+package ticket.booking.cluster;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+// Immutable consistent-hash ring of node ids. Each node is placed at several virtual
+// points so trains spread evenly and only ~1/N of them move when membership changes.
+public class ConsistentHashRing {
+
+    private static final int VIRTUAL_NODES = 64;
+    private static final HashFunction HASH = Hashing.murmur3_32_fixed();
+
+    private final SortedSet<String> members;
+    private final TreeMap<Integer, String> points = new TreeMap<>();
+
+    public ConsistentHashRing(Collection<String> nodeIds) {
+        this.members = new TreeSet<>(nodeIds);
+        for (String nodeId : members) {
+            for (int v = 0; v < VIRTUAL_NODES; v++) {
+                points.put(hash(nodeId + "#" + v), nodeId);
+            }
+        }
+    }
+
+    public SortedSet<String> getMembers() {
+        return members;
+    }
+
+    // Node that owns the given train, or null if the ring is empty
+    public String ownerOf(String trainId) {
+        if (points.isEmpty()) return null;
+        Map.Entry<Integer, String> entry = points.ceilingEntry(hash(trainId));
+        return entry != null ? entry.getValue() : points.firstEntry().getValue();
+    }
+
+    public ConsistentHashRing with(String nodeId) {
+        TreeSet<String> updated = new TreeSet<>(members);
+        updated.add(nodeId);
+        return new ConsistentHashRing(updated);
+    }
+
+    public ConsistentHashRing without(String nodeId) {
+        TreeSet<String> updated = new TreeSet<>(members);
+        updated.remove(nodeId);
+        return new ConsistentHashRing(updated);
+    }
+
+    public List<String> memberList() {
+        return List.copyOf(members);
+    }
+
+    private static int hash(String key) {
+        return HASH.hashString(key, StandardCharsets.UTF_8).asInt();
+    }
+}
@@ -0,0 +1,103 @@
+package ticket.booking.engine;
+
+import ticket.booking.entities.Train;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Compact seat bitmap for one train (bit set = booked). Not thread-safe:
+// each instance must be owned by a single writer.
+public class SeatMap {
+
+    private final int rows;
+    private final int cols;
+    private final long[] bits;
+
+    public SeatMap(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        this.bits = new long[Math.max(1, (rows * cols + 63) / 64)];
+    }
+
+    // Copy the seat matrix of a train
+    public static SeatMap of(Train train) {
+        List<List<Integer>> seats = train.getSeats() == null ? List.of() : train.getSeats();
+        int cols = 0;
+        for (List<Integer> row : seats) {
+            cols = Math.max(cols, row.size());
+        }
+
+        SeatMap map = new SeatMap(seats.size(), cols);
+        for (int r = 0; r < seats.size(); r++) {
+            for (int c = 0; c < seats.get(r).size(); c++) {
+                if (seats.get(r).get(c) != 0) {
+                    map.claim(r, c);
+                }
+            }
+        }
+        return map;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int capacity() {
+        return rows * cols;
+    }
+
+    // Mark a seat as booked; false if already booked or out of range
+    public boolean claim(int row, int col) {
+        if (!isValid(row, col) || isBooked(row, col)) return false;
+        int bit = row * cols + col;
+        bits[bit >>> 6] |= 1L << (bit & 63);
+        return true;
+    }
+
+    // Mark a seat as free; false if it was not booked or out of range
+    public boolean release(int row, int col) {
+        if (!isValid(row, col) || !isBooked(row, col)) return false;
+        int bit = row * cols + col;
+        bits[bit >>> 6] &= ~(1L << (bit & 63));
+        return true;
+    }
+
+    public boolean isBooked(int row, int col) {
+        if (!isValid(row, col)) return false;
+        int bit = row * cols + col;
+        return (bits[bit >>> 6] & (1L << (bit & 63))) != 0;
+    }
+
+    public boolean isValid(int row, int col) {
+        return row >= 0 && row < rows && col >= 0 && col < cols;
+    }
+
+    public int bookedSeats() {
+        int booked = 0;
+        for (long word : bits) {
+            booked += Long.bitCount(word);
+        }
+        return booked;
+    }
+
+    public int freeSeats() {
+        return capacity() - bookedSeats();
+    }
+
+    // Seat layout in the same shape as Train.getSeats() (0 = empty, 1 = booked)
+    public List<List<Integer>> toMatrix() {
+        List<List<Integer>> matrix = new ArrayList<>(rows);
+        for (int r = 0; r < rows; r++) {
+            List<Integer> row = new ArrayList<>(cols);
+            for (int c = 0; c < cols; c++) {
+                row.add(isBooked(r, c) ? 1 : 0);
+            }
+            matrix.add(row);
+        }
+        return matrix;
+    }
+}
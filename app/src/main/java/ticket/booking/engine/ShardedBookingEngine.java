@@ -0,0 +1,290 @@
+package ticket.booking.engine;
+
+import ticket.booking.entities.Train;
+import ticket.booking.service.TrainService;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// Single-writer-per-shard booking engine. Trains are hash-partitioned by trainId across
+// N worker threads; each worker exclusively owns the seat maps of its trains, so seat
+// updates need no locks. Callers enqueue requests on the owning shard's lock-free queue
+// and get a future back; workers drain their queue in batches.
+//
+// Seat maps are written back onto the Train objects by flush() (on demand or every
+// startPeriodicFlush period) and by close(); an engine built from a TrainService then saves
+// them through TrainService.saveTrains. Scope: the engine books seats only. It creates no
+// Ticket, and UserBookingService does not route through it, so while an engine owns a set of
+// trains their seats must not also be booked through UserBookingService/AsyncBookingService.
+public class ShardedBookingEngine implements AutoCloseable {
+
+    private static final int BATCH_SIZE = 256;
+
+    private final Shard[] shards;
+    private final TrainService trainService;  // null: write back to the Train objects only
+    private ScheduledExecutorService flusher;
+    private boolean closed;
+
+    public ShardedBookingEngine(TrainService trainService, int shardCount) {
+        this(trainService, trainService.getTrains(), shardCount);
+    }
+
+    public ShardedBookingEngine(List<Train> trains, int shardCount) {
+        this(null, trains, shardCount);
+    }
+
+    private ShardedBookingEngine(TrainService trainService, List<Train> trains, int shardCount) {
+        if (shardCount < 1) throw new IllegalArgumentException("shardCount must be at least 1");
+        this.trainService = trainService;
+
+        List<Map<String, Train>> owned = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            owned.add(new HashMap<>());
+        }
+        for (Train train : trains) {
+            owned.get(shardOf(train.getTrainId(), shardCount)).putIfAbsent(train.getTrainId(), train);
+        }
+
+        shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i, owned.get(i));
+            shards[i].start();
+        }
+    }
+
+    // Shard that owns a train
+    public static int shardOf(String trainId, int shardCount) {
+        int hash = trainId.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), shardCount);
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    // Book a seat; completes with false if the seat is taken, invalid or the train is unknown
+    public CompletableFuture<Boolean> book(String trainId, int row, int col) {
+        return submit(new Request(Request.BOOK, trainId, row, col));
+    }
+
+    // Free a seat; completes with false if it was not booked
+    public CompletableFuture<Boolean> cancel(String trainId, int row, int col) {
+        return submit(new Request(Request.CANCEL, trainId, row, col));
+    }
+
+    // Current seat layout of a train (0 = empty, 1 = booked), read by the owning worker
+    public CompletableFuture<List<List<Integer>>> seats(String trainId) {
+        Request request = new Request(Request.SEATS, trainId, 0, 0);
+        submit(request);
+        return request.seats;
+    }
+
+    // Copy changed seat maps back onto their Train objects (each shard copies its own, in
+    // queue order) and save them through the TrainService if there is one. Returns whether
+    // anything changed; does nothing once closed, since close() writes back itself.
+    public synchronized boolean flush() throws IOException {
+        if (closed) return false;
+        List<CompletableFuture<Boolean>> copies = new ArrayList<>(shards.length);
+        for (Shard shard : shards) {
+            copies.add(submit(shard, new Request(Request.WRITE_BACK, null, 0, 0)));
+        }
+        boolean changed = false;
+        for (CompletableFuture<Boolean> copy : copies) {
+            changed |= copy.join();
+        }
+        if (changed && trainService != null) {
+            trainService.saveTrains();
+        }
+        return changed;
+    }
+
+    // Flush in the background every periodMillis
+    public synchronized void startPeriodicFlush(long periodMillis) {
+        if (flusher != null || closed) return;
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "booking-engine-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleAtFixedRate(() -> {
+            try {
+                flush();
+            } catch (IOException e) {
+                System.out.println("Could not save engine seats: " + e.getMessage());
+            }
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Stop the workers, fail requests that arrive too late, then write back the final seats
+    @Override
+    public synchronized void close() {
+        if (closed) return;
+        closed = true;
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+        for (Shard shard : shards) {
+            shard.running = false;
+            LockSupport.unpark(shard);
+        }
+        boolean changed = false;
+        for (Shard shard : shards) {
+            try {
+                shard.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            // Fail anything that slipped in after the worker stopped
+            Request request;
+            while ((request = shard.inbox.poll()) != null) {
+                request.fail();
+            }
+            // The worker has exited, so its seat maps are safe to read from here
+            changed |= shard.writeBack();
+        }
+        if (changed && trainService != null) {
+            try {
+                trainService.saveTrains();
+            } catch (IOException e) {
+                System.out.println("Could not save engine seats on close: " + e.getMessage());
+            }
+        }
+    }
+
+    private CompletableFuture<Boolean> submit(Request request) {
+        return submit(shards[shardOf(request.trainId, shards.length)], request);
+    }
+
+    private CompletableFuture<Boolean> submit(Shard shard, Request request) {
+        if (!shard.running) {
+            request.fail();
+            return request.result;
+        }
+        shard.inbox.offer(request);
+        if (!shard.running) {
+            // close() may have drained the inbox between the check above and the offer, so
+            // fail whatever is left ourselves; each request is polled by exactly one party
+            Request leftover;
+            while ((leftover = shard.inbox.poll()) != null) {
+                leftover.fail();
+            }
+            return request.result;
+        }
+        if (shard.idle) {
+            LockSupport.unpark(shard);
+        }
+        return request.result;
+    }
+
+    private static final class Request {
+        static final int BOOK = 0, CANCEL = 1, SEATS = 2, WRITE_BACK = 3;
+
+        final int type;
+        final String trainId;
+        final int row;
+        final int col;
+        final CompletableFuture<Boolean> result = new CompletableFuture<>();
+        final CompletableFuture<List<List<Integer>>> seats;
+
+        Request(int type, String trainId, int row, int col) {
+            this.type = type;
+            this.trainId = trainId;
+            this.row = row;
+            this.col = col;
+            this.seats = type == SEATS ? new CompletableFuture<>() : null;
+        }
+
+        void fail() {
+            IllegalStateException closed = new IllegalStateException("Booking engine is closed");
+            result.completeExceptionally(closed);
+            if (seats != null) seats.completeExceptionally(closed);
+        }
+    }
+
+    private static final class Shard extends Thread {
+        final ConcurrentLinkedQueue<Request> inbox = new ConcurrentLinkedQueue<>();
+        final Map<String, Train> trains;
+        final Map<String, SeatMap> seatMaps = new HashMap<>();  // touched only by this thread
+        boolean dirty;  // seat maps changed since the last write-back; this thread only
+        volatile boolean running = true;
+        volatile boolean idle;
+
+        Shard(int index, Map<String, Train> trains) {
+            super("booking-shard-" + index);
+            this.trains = trains;
+            for (Train train : trains.values()) {
+                seatMaps.put(train.getTrainId(), SeatMap.of(train));
+            }
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (running || !inbox.isEmpty()) {
+                if (drainBatch() == 0) {
+                    // Announce we are about to park, then re-check to avoid a lost wake-up
+                    idle = true;
+                    if (inbox.isEmpty() && running) {
+                        LockSupport.park(this);
+                    }
+                    idle = false;
+                }
+            }
+        }
+
+        private int drainBatch() {
+            int processed = 0;
+            Request request;
+            while (processed < BATCH_SIZE && (request = inbox.poll()) != null) {
+                process(request);
+                processed++;
+            }
+            return processed;
+        }
+
+        private void process(Request request) {
+            if (request.type == Request.WRITE_BACK) {
+                request.result.complete(writeBack());
+                return;
+            }
+            SeatMap seatMap = seatMaps.get(request.trainId);
+            switch (request.type) {
+                case Request.BOOK -> request.result.complete(changed(seatMap != null && seatMap.claim(request.row, request.col)));
+                case Request.CANCEL -> request.result.complete(changed(seatMap != null && seatMap.release(request.row, request.col)));
+                default -> {
+                    request.seats.complete(seatMap == null ? List.of() : seatMap.toMatrix());
+                    request.result.complete(seatMap != null);
+                }
+            }
+        }
+
+        private boolean changed(boolean applied) {
+            dirty |= applied;
+            return applied;
+        }
+
+        // Replace each train's seat matrix with a copy of its seat map; false if nothing changed
+        boolean writeBack() {
+            if (!dirty) return false;
+            dirty = false;
+            for (Map.Entry<String, SeatMap> entry : seatMaps.entrySet()) {
+                Train train = trains.get(entry.getKey());
+                List<List<Integer>> seats = entry.getValue().toMatrix();
+                synchronized (train) {
+                    train.setSeats(seats);
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package ticket.booking.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// HdrHistogram-style latency recorder: log-linear buckets with 32 linear sub-buckets
+// per power of two (about 3% relative error). Recording never allocates.
+public class LatencyRecorder implements LatencyRecorderMXBean {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    // Record a single latency sample in nanoseconds
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        buckets.incrementAndGet(bucketIndex(nanos));
+        count.incrementAndGet();
+        totalNanos.addAndGet(nanos);
+
+        long max = maxNanos.get();
+        while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+            max = maxNanos.get();
+        }
+    }
+
+    // Count a failed operation (its latency is still recorded separately)
+    public void markError() {
+        errors.incrementAndGet();
+    }
+
+    // Value (in nanos) below which the given percentage of samples fall
+    public long valueAtPercentile(double percentile) {
+        long total = count.get();
+        if (total == 0) return 0;
+
+        long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += buckets.get(i);
+            if (seen >= target) {
+                return Math.min(bucketMidpoint(i), maxNanos.get());
+            }
+        }
+        return maxNanos.get();
+    }
+
+    @Override
+    public long getCount() {
+        return count.get();
+    }
+
+    @Override
+    public long getErrorCount() {
+        return errors.get();
+    }
+
+    @Override
+    public double getMeanMicros() {
+        long total = count.get();
+        return total == 0 ? 0 : totalNanos.get() / (double) total / 1_000;
+    }
+
+    @Override
+    public double getP50Micros() {
+        return valueAtPercentile(50) / 1_000.0;
+    }
+
+    @Override
+    public double getP90Micros() {
+        return valueAtPercentile(90) / 1_000.0;
+    }
+
+    @Override
+    public double getP99Micros() {
+        return valueAtPercentile(99) / 1_000.0;
+    }
+
+    @Override
+    public double getMaxMicros() {
+        return maxNanos.get() / 1_000.0;
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets.set(i, 0);
+        }
+        count.set(0);
+        errors.set(0);
+        totalNanos.set(0);
+        maxNanos.set(0);
+    }
+
+    // Values below 32 get their own bucket; above that each power of two is split in 32
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) return (int) value;
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        int group = magnitude - SUB_BUCKET_BITS + 1;
+        int subBucket = (int) (value >>> (magnitude - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+        return group * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    // Representative value for a bucket: the middle of its range
+    static long bucketMidpoint(int index) {
+        int group = index >>> SUB_BUCKET_BITS;
+        int subBucket = index & (SUB_BUCKET_COUNT - 1);
+        if (group == 0) return subBucket;
+        long lowest = (long) (SUB_BUCKET_COUNT + subBucket) << (group - 1);
+        long width = 1L << (group - 1);
+        return lowest + width / 2;
+    }
+}
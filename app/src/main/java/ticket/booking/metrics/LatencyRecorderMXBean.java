@@ -0,0 +1,21 @@
+package ticket.booking.metrics;
+
+// JMX view of a single latency recorder
+public interface LatencyRecorderMXBean {
+
+    long getCount();
+
+    long getErrorCount();
+
+    double getMeanMicros();
+
+    double getP50Micros();
+
+    double getP90Micros();
+
+    double getP99Micros();
+
+    double getMaxMicros();
+
+    void reset();
+}
@@ -0,0 +1,62 @@
+package ticket.booking.metrics;
+
+// Every instrumented operation (user-facing call) and stage (hot step inside a call).
+// Usage: long start = Metric.X.start(); ... Metric.X.stop(start);
+public enum Metric {
+
+    SIGN_UP(Kind.OPERATION, "signUp"),
+    LOGIN(Kind.OPERATION, "login"),
+    SEARCH(Kind.OPERATION, "search"),
+    BOOK(Kind.OPERATION, "book"),
+    CANCEL(Kind.OPERATION, "cancel"),
+
+    TRAIN_LOAD(Kind.STAGE, "trainLoad"),
+    TRAIN_SAVE(Kind.STAGE, "trainSave"),
+    USER_LOAD(Kind.STAGE, "userLoad"),
+    USER_SAVE(Kind.STAGE, "userSave"),
+    PASSWORD_HASH(Kind.STAGE, "passwordHash"),
+    PASSWORD_CHECK(Kind.STAGE, "passwordCheck"),
+    SEARCH_SCAN(Kind.STAGE, "searchScan"),
+    WAITLIST_PROMOTION(Kind.STAGE, "waitlistPromotion");  // seat freed -> promotion delivered to listeners
+
+    public enum Kind { OPERATION, STAGE }
+
+    private final Kind kind;
+    private final String displayName;
+    private final LatencyRecorder recorder = new LatencyRecorder();
+
+    Metric(Kind kind, String displayName) {
+        this.kind = kind;
+        this.displayName = displayName;
+    }
+
+    // Returns the start timestamp, or 0 when metrics are switched off
+    public long start() {
+        return Metrics.isEnabled() ? System.nanoTime() : 0L;
+    }
+
+    // Records the time elapsed since start(); no-op if the timer was not started
+    public void stop(long startNanos) {
+        if (startNanos != 0L) {
+            recorder.record(System.nanoTime() - startNanos);
+        }
+    }
+
+    public void markError() {
+        if (Metrics.isEnabled()) {
+            recorder.markError();
+        }
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public LatencyRecorder getRecorder() {
+        return recorder;
+    }
+}
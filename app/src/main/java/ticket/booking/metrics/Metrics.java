@@ -0,0 +1,98 @@
+package ticket.booking.metrics;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Global switch, JMX registration and text/JSON dumps for all metrics
+public final class Metrics {
+
+    private static final String JMX_DOMAIN = "ticket.booking";
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static volatile boolean enabled = !Boolean.getBoolean("booking.metrics.disabled");
+
+    private Metrics() {}
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean value) {
+        enabled = value;
+    }
+
+    // Clear every recorder, e.g. between benchmark rounds
+    public static void resetAll() {
+        for (Metric metric : Metric.values()) {
+            metric.getRecorder().reset();
+        }
+    }
+
+    // Register one MXBean per metric with the platform MBean server (safe to call twice)
+    public static void registerMBeans() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (Metric metric : Metric.values()) {
+            try {
+                ObjectName name = objectName(metric);
+                if (!server.isRegistered(name)) {
+                    server.registerMBean(metric.getRecorder(), name);
+                }
+            } catch (JMException e) {
+                System.out.println("Failed to register metric " + metric.getDisplayName() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    public static ObjectName objectName(Metric metric) throws JMException {
+        return new ObjectName(JMX_DOMAIN + ":type=Metric,kind=" + metric.getKind().name().toLowerCase()
+                + ",name=" + metric.getDisplayName());
+    }
+
+    // Human readable table of all metrics that have seen traffic
+    public static String dumpText() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("%-14s %-9s %10s %8s %12s %12s %12s %12s %12s%n",
+                "metric", "kind", "count", "errors", "mean(us)", "p50(us)", "p90(us)", "p99(us)", "max(us)"));
+        for (Metric metric : Metric.values()) {
+            LatencyRecorder r = metric.getRecorder();
+            if (r.getCount() == 0 && r.getErrorCount() == 0) continue;
+            out.append(String.format("%-14s %-9s %10d %8d %12.1f %12.1f %12.1f %12.1f %12.1f%n",
+                    metric.getDisplayName(), metric.getKind().name().toLowerCase(), r.getCount(), r.getErrorCount(),
+                    r.getMeanMicros(), r.getP50Micros(), r.getP90Micros(), r.getP99Micros(), r.getMaxMicros()));
+        }
+        return out.toString();
+    }
+
+    // JSON array with one object per metric
+    public static String dumpJson() {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Metric metric : Metric.values()) {
+            LatencyRecorder r = metric.getRecorder();
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("name", metric.getDisplayName());
+            row.put("kind", metric.getKind().name().toLowerCase());
+            row.put("count", r.getCount());
+            row.put("errors", r.getErrorCount());
+            row.put("mean_us", r.getMeanMicros());
+            row.put("p50_us", r.getP50Micros());
+            row.put("p90_us", r.getP90Micros());
+            row.put("p99_us", r.getP99Micros());
+            row.put("max_us", r.getMaxMicros());
+            rows.add(row);
+        }
+        try {
+            return objectMapper.writeValueAsString(rows);
+        } catch (JsonProcessingException e) {
+            return "[]";
+        }
+    }
+}
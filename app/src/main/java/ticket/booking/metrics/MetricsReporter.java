@@ -0,0 +1,52 @@
+package ticket.booking.metrics;
+
+import java.io.PrintStream;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Periodically prints a metrics dump on a background daemon thread
+public class MetricsReporter implements AutoCloseable {
+
+    public enum Format { TEXT, JSON }
+
+    private final ScheduledExecutorService scheduler;
+    private final Format format;
+    private final PrintStream out;
+
+    public MetricsReporter(long periodSeconds, Format format, PrintStream out) {
+        this.format = format;
+        this.out = out;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::report, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    // Start a reporter from -Dbooking.metrics.dumpSeconds / -Dbooking.metrics.format, or null if not configured
+    public static MetricsReporter fromSystemProperties(PrintStream out) {
+        long period = Long.getLong("booking.metrics.dumpSeconds", 0L);
+        if (period <= 0) return null;
+        String name = System.getProperty("booking.metrics.format", "text");
+        Format format;
+        try {
+            format = Format.valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            // A typo in a monitoring flag should not stop the app
+            out.println("Unknown metrics format '" + name + "', using text");
+            format = Format.TEXT;
+        }
+        return new MetricsReporter(period, format, out);
+    }
+
+    public void report() {
+        out.println(format == Format.JSON ? Metrics.dumpJson() : Metrics.dumpText());
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
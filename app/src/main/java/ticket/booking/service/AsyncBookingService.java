@@ -0,0 +1,265 @@
+package ticket.booking.service;
+
+import ticket.booking.entities.Ticket;
+import ticket.booking.entities.Train;
+import ticket.booking.entities.User;
+import ticket.booking.metrics.Metric;
+import ticket.booking.storage.LocalDbStore;
+import ticket.booking.util.UserServiceUtil;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+// Non-blocking, session-less facade over the booking logic. Every call returns a
+// CompletableFuture right away: BCrypt and search run on a CPU pool, file writes run on
+// a single I/O thread that coalesces all changes made since its last write into one save
+// (group commit). A booking future completes once its change is on disk.
+public class AsyncBookingService implements AutoCloseable {
+
+    private final TrainService trainService;
+    private final LocalDbStore<List<User>> userStore;
+    private final List<User> userList;  // guarded by this
+    private final Map<String, User> usersByName = new HashMap<>();  // guarded by this
+
+    private final ExecutorService cpuExecutor;
+    private final ExecutorService ioExecutor;
+    private final Object saveLock = new Object();
+    private CompletableFuture<Void> pendingSave;  // next save not yet started, guarded by saveLock
+    private boolean pendingTrains;  // whether that save must also write trains, guarded by saveLock
+
+    public AsyncBookingService(TrainService trainService, LocalDbStore<List<User>> userStore) throws IOException {
+        this(trainService, userStore, Runtime.getRuntime().availableProcessors());
+    }
+
+    public AsyncBookingService(TrainService trainService, LocalDbStore<List<User>> userStore, int cpuThreads)
+            throws IOException {
+        this.trainService = trainService;
+        this.userStore = userStore;
+        userStore.initIfMissing(new ArrayList<>());
+        this.userList = userStore.load();
+        for (User user : userList) {
+            usersByName.putIfAbsent(user.getName(), user);
+        }
+        this.cpuExecutor = Executors.newFixedThreadPool(cpuThreads, daemonThreads("booking-cpu"));
+        this.ioExecutor = Executors.newSingleThreadExecutor(daemonThreads("booking-io"));
+    }
+
+    // Trains that pass through source and then destination
+    public CompletableFuture<List<Train>> searchTrains(String source, String destination) {
+        return CompletableFuture.supplyAsync(() -> {
+            long start = Metric.SEARCH.start();
+            try {
+                return trainService.searchTrains(source, destination);
+            } finally {
+                Metric.SEARCH.stop(start);
+            }
+        }, cpuExecutor);
+    }
+
+    // Completes with the user if the password matches
+    public CompletableFuture<Optional<User>> login(String name, String password) {
+        User candidate;
+        synchronized (this) {
+            candidate = usersByName.get(name);
+        }
+        if (candidate == null) {
+            Metric.LOGIN.markError();
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            long start = Metric.LOGIN.start();
+            boolean matches = UserServiceUtil.checkPassword(password, candidate.getHashedPassword());
+            if (!matches) Metric.LOGIN.markError();
+            Metric.LOGIN.stop(start);
+            return matches ? Optional.of(candidate) : Optional.<User>empty();
+        }, cpuExecutor);
+    }
+
+    // Registers a new user; completes with false if the name is taken
+    public CompletableFuture<Boolean> signUp(User user) {
+        synchronized (this) {
+            if (usersByName.putIfAbsent(user.getName(), user) != null) {
+                return CompletableFuture.completedFuture(false);
+            }
+            userList.add(user);
+        }
+        return persist(false).thenApply(ignored -> true);
+    }
+
+    // Books a seat for the user; completes with the ticket once it is persisted, or with empty
+    // if the seat was taken or invalid. If the save fails, the booking is undone.
+    public CompletableFuture<Optional<Ticket>> book(User user, Train requested, int row, int col) {
+        long start = Metric.BOOK.start();
+        // Book on the timetable's own instance; a caller's copy is never saved
+        Train train = trainService.findTrain(requested.getTrainId()).orElse(null);
+        if (train == null) {
+            Metric.BOOK.markError();
+            Metric.BOOK.stop(start);
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        synchronized (train) {
+            List<List<Integer>> seats = train.getSeats();
+            if (row < 0 || row >= seats.size() || col < 0 || col >= seats.get(row).size()
+                    || seats.get(row).get(col) != 0) {
+                Metric.BOOK.markError();
+                Metric.BOOK.stop(start);
+                return CompletableFuture.completedFuture(Optional.empty());
+            }
+            seats.get(row).set(col, 1);
+        }
+
+        Ticket ticket = UserBookingService.createTicket(user.getUserId(), train, row, col);
+        synchronized (user) {
+            // Replace rather than mutate, so a save in progress never sees the list change
+            List<Ticket> tickets = new ArrayList<>(user.getTicketsBooked());
+            tickets.add(ticket);
+            user.setTicketsBooked(tickets);
+        }
+        return persist(true).whenComplete((ignored, error) -> {
+            // A failed group commit still counts, as an error, and must not be saved by a later one
+            if (error != null) {
+                // Free the seat only if the ticket still holds it (it may have been cancelled and rebooked since)
+                boolean held;
+                synchronized (user) {
+                    List<Ticket> tickets = new ArrayList<>(user.getTicketsBooked());
+                    held = tickets.remove(ticket);
+                    user.setTicketsBooked(tickets);
+                }
+                if (held) {
+                    synchronized (train) {
+                        train.getSeats().get(row).set(col, 0);
+                    }
+                }
+                Metric.BOOK.markError();
+            }
+            Metric.BOOK.stop(start);
+        }).thenApply(ignored -> Optional.of(ticket));
+    }
+
+    // Cancels one of the user's tickets and frees its seat; false if the ticket is unknown.
+    // If the save fails, the ticket gets its seat back.
+    public CompletableFuture<Boolean> cancel(User user, String ticketId) {
+        long start = Metric.CANCEL.start();
+        Ticket cancelled = null;
+        synchronized (user) {
+            List<Ticket> tickets = new ArrayList<>(user.getTicketsBooked());
+            for (int i = 0; i < tickets.size(); i++) {
+                if (tickets.get(i).getTicketId().equals(ticketId)) {
+                    cancelled = tickets.remove(i);
+                    break;
+                }
+            }
+            user.setTicketsBooked(tickets);
+        }
+        if (cancelled == null) {
+            Metric.CANCEL.markError();
+            Metric.CANCEL.stop(start);
+            return CompletableFuture.completedFuture(false);
+        }
+
+        Ticket ticket = cancelled;
+        Train train = trainService.findTrain(ticket.getTrain().getTrainId()).orElse(ticket.getTrain());
+        synchronized (train) {
+            train.getSeats().get(ticket.getSeatRow()).set(ticket.getSeatCol(), 0);
+        }
+        return persist(true).whenComplete((ignored, error) -> {
+            if (error != null) {
+                // Give the ticket its seat back, unless another booking took the freed seat
+                // meanwhile; then the cancellation stands and the next save records it
+                boolean reclaimed = false;
+                synchronized (train) {
+                    List<Integer> seatRow = train.getSeats().get(ticket.getSeatRow());
+                    if (seatRow.get(ticket.getSeatCol()) == 0) {
+                        seatRow.set(ticket.getSeatCol(), 1);
+                        reclaimed = true;
+                    }
+                }
+                if (reclaimed) {
+                    synchronized (user) {
+                        List<Ticket> tickets = new ArrayList<>(user.getTicketsBooked());
+                        tickets.add(ticket);
+                        user.setTicketsBooked(tickets);
+                    }
+                }
+                Metric.CANCEL.markError();
+            }
+            Metric.CANCEL.stop(start);
+        }).thenApply(ignored -> true);
+    }
+
+    // Waits for pending writes, then stops both executors
+    @Override
+    public void close() {
+        CompletableFuture<Void> last;
+        synchronized (saveLock) {
+            last = pendingSave;
+        }
+        if (last != null) {
+            last.exceptionally(e -> null).join();
+        }
+        cpuExecutor.shutdown();
+        ioExecutor.shutdown();
+        try {
+            ioExecutor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Join the next group commit; its future completes once users (and trains) are written
+    private CompletableFuture<Void> persist(boolean trainsChanged) {
+        synchronized (saveLock) {
+            if (pendingSave == null) {
+                pendingSave = new CompletableFuture<>();
+                ioExecutor.execute(this::flush);
+            }
+            pendingTrains |= trainsChanged;
+            return pendingSave;
+        }
+    }
+
+    private void flush() {
+        CompletableFuture<Void> batch;
+        boolean trainsChanged;
+        synchronized (saveLock) {
+            batch = pendingSave;
+            trainsChanged = pendingTrains;
+            pendingSave = null;
+            pendingTrains = false;
+        }
+
+        List<User> snapshot;
+        synchronized (this) {
+            snapshot = new ArrayList<>(userList);
+        }
+        try {
+            if (trainsChanged) {
+                trainService.saveTrains();
+            }
+            long start = Metric.USER_SAVE.start();
+            userStore.save(snapshot);
+            Metric.USER_SAVE.stop(start);
+            batch.complete(null);
+        } catch (IOException | RuntimeException e) {
+            Metric.USER_SAVE.markError();
+            batch.completeExceptionally(e);
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        return r -> {
+            Thread thread = new Thread(r, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,144 @@
+package ticket.booking.service;
+
+import ticket.booking.entities.Ticket;
+import ticket.booking.entities.Train;
+import ticket.booking.entities.User;
+import ticket.booking.storage.TicketArchive;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Cursor-paginated booking history. Upcoming trips stay on the User (hot); past trips
+// are moved to the per-user TicketArchive (cold) and only read when asked for. Archived
+// tickets still hold their seat and can still be cancelled (removeArchived). A user's
+// archive is read and sorted once, then kept for the life of this service (one session),
+// so paging through it costs a binary search and a short merge per page.
+public class BookingHistoryService {
+
+    // Tickets ordered by travel date, ties broken by ticket id so the order is stable
+    private static final Comparator<Ticket> BY_TRAVEL_DATE =
+            Comparator.comparing(BookingHistoryService::sortKey);
+
+    private final TicketArchive archive;
+    private final Map<String, List<Ticket>> sortedArchives = new ConcurrentHashMap<>();  // userId -> archive in BY_TRAVEL_DATE order
+
+    public BookingHistoryService(TicketArchive archive) {
+        this.archive = archive;
+    }
+
+    // Move tickets whose travel date is before today to the archive; returns how many moved
+    public int archivePastTrips(User user, LocalDate today) throws IOException {
+        List<Ticket> upcoming = new ArrayList<>();
+        List<Ticket> past = new ArrayList<>();
+        String todayKey = today.toString();
+        for (Ticket ticket : user.getTicketsBooked()) {
+            if (travelDate(ticket).compareTo(todayKey) < 0) {
+                past.add(withoutSeatMap(ticket));
+            } else {
+                upcoming.add(ticket);
+            }
+        }
+
+        if (past.isEmpty()) return 0;
+        past.sort(BY_TRAVEL_DATE);  // keeps the archive file (mostly) in order, so the first sort is cheap
+        archive.append(user.getUserId(), past);
+        sortedArchives.remove(user.getUserId());
+        user.setTicketsBooked(upcoming);
+        return past.size();
+    }
+
+    // Drop a cancelled ticket from the user's archive; false if it is not there
+    public boolean removeArchived(User user, String ticketId) throws IOException {
+        if (!archive.hasArchive(user.getUserId())) return false;
+        boolean removed = archive.remove(user.getUserId(), ticketId);
+        if (removed) sortedArchives.remove(user.getUserId());
+        return removed;
+    }
+
+    // One page of tickets sorted by travel date, starting after the given cursor (null for the first page)
+    public BookingPage page(User user, String cursor, int pageSize, boolean includeArchived) throws IOException {
+        if (pageSize < 1) throw new IllegalArgumentException("pageSize must be at least 1");
+        List<Ticket> hot = new ArrayList<>(user.getTicketsBooked());
+        hot.sort(BY_TRAVEL_DATE);
+        List<Ticket> cold = includeArchived ? sortedArchive(user.getUserId()) : List.of();
+
+        // Merge the two sorted runs from the first ticket after the cursor
+        String after = cursor == null ? null : decodeCursor(cursor);
+        int i = firstAfter(hot, after);
+        int j = firstAfter(cold, after);
+        List<Ticket> page = new ArrayList<>(pageSize);
+        while (page.size() < pageSize && (i < hot.size() || j < cold.size())) {
+            boolean takeHot = j == cold.size()
+                    || (i < hot.size() && BY_TRAVEL_DATE.compare(hot.get(i), cold.get(j)) <= 0);
+            page.add(takeHot ? hot.get(i++) : cold.get(j++));
+        }
+
+        boolean more = i < hot.size() || j < cold.size();
+        String next = more ? encodeCursor(sortKey(page.get(page.size() - 1))) : null;
+        return new BookingPage(page, next);
+    }
+
+    // The user's archive in travel date order, loaded on first use
+    private List<Ticket> sortedArchive(String userId) throws IOException {
+        List<Ticket> sorted = sortedArchives.get(userId);
+        if (sorted == null) {
+            List<Ticket> loaded = archive.load(userId);
+            loaded.sort(BY_TRAVEL_DATE);
+            sorted = Collections.unmodifiableList(loaded);
+            sortedArchives.put(userId, sorted);
+        }
+        return sorted;
+    }
+
+    // Index of the first ticket whose key is after the given one; 0 when there is no key
+    private static int firstAfter(List<Ticket> tickets, String after) {
+        int from = 0;
+        if (after == null) return from;
+        int high = tickets.size();
+        while (from < high) {
+            int mid = (from + high) >>> 1;
+            if (sortKey(tickets.get(mid)).compareTo(after) <= 0) {
+                from = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return from;
+    }
+
+    // ISO date part of the travel date ("2023-12-08T18:30:00Z" and "2023-12-08" both give "2023-12-08")
+    static String travelDate(Ticket ticket) {
+        String date = ticket.getDateOfTravel() == null ? "" : ticket.getDateOfTravel();
+        return date.length() > 10 ? date.substring(0, 10) : date;
+    }
+
+    private static String sortKey(Ticket ticket) {
+        return travelDate(ticket) + '\u0000' + ticket.getTicketId();
+    }
+
+    private static String encodeCursor(String key) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodeCursor(String cursor) {
+        return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+    }
+
+    // An archived ticket is cancelled by train id and seat against the live train, so its own
+    // copy of the seat matrix is dead weight
+    private static Ticket withoutSeatMap(Ticket ticket) {
+        Train train = ticket.getTrain();
+        Train slim = train == null ? null
+                : new Train(train.getTrainId(), train.getTrainNo(), null, train.getStationTimes(), train.getStations());
+        return new Ticket(ticket.getTicketId(), ticket.getUserId(), ticket.getSource(), ticket.getDestination(),
+                ticket.getDateOfTravel(), slim, ticket.getTicketInfo(), ticket.getSeatRow(), ticket.getSeatCol());
+    }
+}
@@ -0,0 +1,29 @@
+package ticket.booking.service;
+
+import ticket.booking.entities.Ticket;
+
+import java.util.List;
+
+// One page of a user's booking history, plus the cursor for the next page (null at the end)
+public class BookingPage {
+
+    private final List<Ticket> tickets;
+    private final String nextCursor;
+
+    public BookingPage(List<Ticket> tickets, String nextCursor) {
+        this.tickets = tickets;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Ticket> getTickets() {
+        return tickets;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+}
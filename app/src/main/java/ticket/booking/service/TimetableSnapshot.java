@@ -0,0 +1,231 @@
+package ticket.booking.service;
+
+import ticket.booking.entities.Train;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Immutable route index over a set of trains: a station dictionary and, per station, the
+// sorted list of trains stopping there with the stop's position on the route. Searches
+// only read it, so any number of threads can use a snapshot without locking. The Train
+// objects themselves (and their seat matrices) stay mutable and are shared, not copied.
+public final class TimetableSnapshot {
+
+    private static final int[] NONE = new int[0];
+
+    private final Train[] trains;
+    private final Map<String, Integer> stationIds;  // station name -> index into the arrays below
+    private final int[][] stationTrains;            // per station: train indexes, ascending
+    private final int[][] stationPositions;         // per station: position of the stop on that train's route
+    private final String[] sortedIds;               // lower-cased train ids, ascending
+    private final int[] sortedIdTrains;             // train index for each entry of sortedIds
+    private final List<Train> trainView;
+
+    private TimetableSnapshot(Train[] trains, String[] sortedIds, int[] sortedIdTrains, Map<String, Integer> stationIds,
+                              int[][] stationTrains, int[][] stationPositions) {
+        this.trains = trains;
+        this.sortedIds = sortedIds;
+        this.sortedIdTrains = sortedIdTrains;
+        this.stationIds = stationIds;
+        this.stationTrains = stationTrains;
+        this.stationPositions = stationPositions;
+        this.trainView = Collections.unmodifiableList(Arrays.asList(trains));
+    }
+
+    // Index all trains in list order
+    public static TimetableSnapshot of(List<Train> trains) {
+        Map<String, Integer> stationIds = new HashMap<>();
+        List<int[]> postings = new ArrayList<>();  // {trainIndex, position} pairs, flattened per station
+        int[] sizes = new int[16];
+        Train[] trainArray = trains.toArray(new Train[0]);
+
+        for (int t = 0; t < trainArray.length; t++) {
+            List<String> stations = trainArray[t].getStations();
+            if (stations == null) continue;
+            for (int position = 0; position < stations.size(); position++) {
+                String station = stations.get(position);
+                if (stations.indexOf(station) != position) continue;  // only the first stop counts, as in indexOf
+                Integer id = stationIds.get(station);
+                if (id == null) {
+                    id = postings.size();
+                    stationIds.put(station, id);
+                    postings.add(new int[8]);
+                    if (id == sizes.length) sizes = Arrays.copyOf(sizes, id * 2);
+                }
+                int[] posting = postings.get(id);
+                if (sizes[id] == posting.length) {
+                    posting = Arrays.copyOf(posting, posting.length * 2);
+                    postings.set(id, posting);
+                }
+                posting[sizes[id]++] = t;
+                posting[sizes[id]++] = position;
+            }
+        }
+
+        int[][] stationTrains = new int[postings.size()][];
+        int[][] stationPositions = new int[postings.size()][];
+        for (int id = 0; id < postings.size(); id++) {
+            int[] posting = postings.get(id);
+            int count = sizes[id] / 2;
+            stationTrains[id] = new int[count];
+            stationPositions[id] = new int[count];
+            for (int i = 0; i < count; i++) {
+                stationTrains[id][i] = posting[2 * i];
+                stationPositions[id][i] = posting[2 * i + 1];
+            }
+        }
+
+        // Id lookup table; equal ids keep list order so the first one wins, as in a linear scan.
+        // Keys are lower-cased once up front, not on every comparison.
+        String[] keys = new String[trainArray.length];
+        Integer[] order = new Integer[trainArray.length];
+        for (int t = 0; t < order.length; t++) {
+            keys[t] = idKey(trainArray[t].getTrainId());
+            order[t] = t;
+        }
+        Arrays.sort(order, Comparator.comparing((Integer t) -> keys[t]));
+        String[] sortedIds = new String[order.length];
+        int[] sortedIdTrains = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            sortedIds[i] = keys[order[i]];
+            sortedIdTrains[i] = order[i];
+        }
+        return new TimetableSnapshot(trainArray, sortedIds, sortedIdTrains, stationIds, stationTrains, stationPositions);
+    }
+
+    // A new snapshot with the train added, or replacing the train with the same id (case-insensitive).
+    // Only the posting lists that change are copied; the rest are shared with this snapshot.
+    public TimetableSnapshot with(Train train) {
+        String key = idKey(train.getTrainId());
+        int slot = findId(key);
+        boolean replacing = slot >= 0;
+        int index;
+        Train[] newTrains;
+        String[] newSortedIds = sortedIds;
+        int[] newSortedIdTrains = sortedIdTrains;
+        if (replacing) {
+            index = sortedIdTrains[slot];
+            newTrains = trains.clone();
+        } else {
+            index = trains.length;
+            newTrains = Arrays.copyOf(trains, trains.length + 1);
+            slot = -slot - 1;
+            newSortedIds = new String[sortedIds.length + 1];
+            System.arraycopy(sortedIds, 0, newSortedIds, 0, slot);
+            newSortedIds[slot] = key;
+            System.arraycopy(sortedIds, slot, newSortedIds, slot + 1, sortedIds.length - slot);
+            newSortedIdTrains = insert(sortedIdTrains, slot, index);
+        }
+        newTrains[index] = train;
+
+        Map<String, Integer> newStationIds = stationIds;
+        int[][] newTrainsAt = stationTrains.clone();
+        int[][] newPositions = stationPositions.clone();
+
+        if (replacing) {
+            // Check every station rather than the old route, which may have been edited in place
+            for (int id = 0; id < newTrainsAt.length; id++) {
+                int at = Arrays.binarySearch(newTrainsAt[id], index);
+                if (at < 0) continue;
+                newTrainsAt[id] = remove(newTrainsAt[id], at);
+                newPositions[id] = remove(newPositions[id], at);
+            }
+        }
+
+        List<String> stations = train.getStations();
+        if (stations != null) {
+            for (int position = 0; position < stations.size(); position++) {
+                String station = stations.get(position);
+                if (stations.indexOf(station) != position) continue;
+                Integer id = newStationIds.get(station);
+                if (id == null) {
+                    if (newStationIds == stationIds) newStationIds = new HashMap<>(stationIds);
+                    id = newTrainsAt.length;
+                    newStationIds.put(station, id);
+                    newTrainsAt = Arrays.copyOf(newTrainsAt, id + 1);
+                    newPositions = Arrays.copyOf(newPositions, id + 1);
+                    newTrainsAt[id] = NONE;
+                    newPositions[id] = NONE;
+                }
+                int at = -Arrays.binarySearch(newTrainsAt[id], index) - 1;
+                newTrainsAt[id] = insert(newTrainsAt[id], at, index);
+                newPositions[id] = insert(newPositions[id], at, position);
+            }
+        }
+        return new TimetableSnapshot(newTrains, newSortedIds, newSortedIdTrains, newStationIds, newTrainsAt, newPositions);
+    }
+
+    // Trains that stop at source and later at destination, in timetable order
+    public List<Train> search(String source, String destination) {
+        Integer from = stationIds.get(source.toLowerCase());
+        Integer to = stationIds.get(destination.toLowerCase());
+        List<Train> result = new ArrayList<>();
+        if (from == null || to == null) return result;
+
+        // Merge the two ascending posting lists
+        int[] fromTrains = stationTrains[from], toTrains = stationTrains[to];
+        int[] fromPositions = stationPositions[from], toPositions = stationPositions[to];
+        int i = 0, j = 0;
+        while (i < fromTrains.length && j < toTrains.length) {
+            if (fromTrains[i] < toTrains[j]) {
+                i++;
+            } else if (fromTrains[i] > toTrains[j]) {
+                j++;
+            } else {
+                if (fromPositions[i] < toPositions[j]) result.add(trains[fromTrains[i]]);
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    // The train with this id (case-insensitive), or null
+    public Train find(String trainId) {
+        int slot = findId(idKey(trainId));
+        return slot < 0 ? null : trains[sortedIdTrains[slot]];
+    }
+
+    // Read-only view of the trains, in timetable order
+    public List<Train> getTrains() {
+        return trainView;
+    }
+
+    public int stationCount() {
+        return stationTrains.length;
+    }
+
+    // Slot of the first entry for the key in sortedIds, or (-insertionPoint - 1) if absent
+    private int findId(String key) {
+        int slot = Arrays.binarySearch(sortedIds, key);
+        while (slot > 0 && sortedIds[slot - 1].equals(key)) {
+            slot--;
+        }
+        return slot;
+    }
+
+    private static String idKey(String trainId) {
+        return trainId.toLowerCase(Locale.ROOT);
+    }
+
+    private static int[] insert(int[] values, int at, int value) {
+        int[] copy = new int[values.length + 1];
+        System.arraycopy(values, 0, copy, 0, at);
+        copy[at] = value;
+        System.arraycopy(values, at, copy, at + 1, values.length - at);
+        return copy;
+    }
+
+    private static int[] remove(int[] values, int at) {
+        int[] copy = new int[values.length - 1];
+        System.arraycopy(values, 0, copy, 0, at);
+        System.arraycopy(values, at + 1, copy, at, values.length - at - 1);
+        return copy;
+    }
+}
@@ -1,82 +1,125 @@
 package ticket.booking.service;
 
 import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import ticket.booking.analytics.FleetAnalytics;
+import ticket.booking.analytics.FleetRoutes;
 import ticket.booking.entities.Train;
+import ticket.booking.metrics.Metric;
+import ticket.booking.storage.LocalDbStore;
+import ticket.booking.storage.SeatInventoryFile;
 
-import java.io.File;
 import java.io.IOException;
 import java.util.List;
 import java.util.Optional;
-import java.util.OptionalInt;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.concurrent.ForkJoinPool;
 
 public class TrainService {
 
-    private List<Train> trainList;  // List holding all train data in memory
-    private final ObjectMapper objectMapper = new ObjectMapper();
-    private final String TRAIN_DB_PATH = "app/src/main/java/ticket/booking/localDb/trains.json";  // Path to train JSON
+    // Route index searched lock-free; writers build a new one and swap it in
+    private volatile TimetableSnapshot timetable;
+    private final Object writeLock = new Object();  // Serialises timetable updates
+    private final LocalDbStore<List<Train>> trainStore;  // Where trains are persisted, null for in-memory only
+    private volatile FleetRoutes fleetRoutes;  // Columnar routes of the timetable, built on first analytics use
 
-    // Constructor: Reads train data from JSON file into memory
+    // Constructor: Reads train data from the configured localDb store into memory
     public TrainService() throws IOException {
-        File trains = new File(TRAIN_DB_PATH);
-        trainList = objectMapper.readValue(trains, new TypeReference<List<Train>>() {});
+        this(new LocalDbStore<>("trains", new TypeReference<List<Train>>() {}));
     }
 
-    // Search trains that include both source and destination stations in the correct order
-    public List<Train> searchTrains(String source, String destination) {
-        return trainList.stream()
-                .filter(train -> validTrain(train, source, destination))
-                .collect(Collectors.toList());
+    // Constructor: Reads train data from the given store
+    public TrainService(LocalDbStore<List<Train>> trainStore) throws IOException {
+        this.trainStore = trainStore;
+        long start = Metric.TRAIN_LOAD.start();
+        try {
+            timetable = TimetableSnapshot.of(trainStore.load());
+        } finally {
+            Metric.TRAIN_LOAD.stop(start);
+        }
     }
 
-    // Add or update a train in the train list
-    public void addTrain(Train newTrain) {
-        Optional<Train> existingTrain = trainList.stream()
-                .filter(train -> train.getTrainId().equalsIgnoreCase(newTrain.getTrainNo()))
-                .findFirst();
-
-        if (existingTrain.isPresent()) {
-            updateTrain(newTrain);  // If train already exists, update it
-        } else {
-            trainList.add(newTrain);  // Otherwise, add as new
-            saveTrainListToFile();
+    // Constructor: Indexes an already loaded train list, nothing is persisted (used by tools and benchmarks)
+    public TrainService(List<Train> trainList) {
+        this.timetable = TimetableSnapshot.of(trainList);
+        this.trainStore = null;
+    }
+
+    // All trains in the current timetable (read-only)
+    public List<Train> getTrains() {
+        return timetable.getTrains();
+    }
+
+    // Look up a train by id in the current timetable
+    public Optional<Train> findTrain(String trainId) {
+        return Optional.ofNullable(timetable.find(trainId));
+    }
+
+    // The current timetable snapshot; it never changes, later updates publish a new one
+    public TimetableSnapshot getTimetable() {
+        return timetable;
+    }
+
+    // Fleet-wide aggregations over the current seat state, computed on the common fork/join pool
+    public FleetAnalytics analytics() {
+        return analytics(ForkJoinPool.commonPool());
+    }
+
+    // Fleet-wide aggregations computed on the given pool (its parallelism decides how many cores are used)
+    public FleetAnalytics analytics(ForkJoinPool pool) {
+        return analytics(pool, null);
+    }
+
+    // As above, reading the seats of trains held by the inventory (may be null) from its mapped bitmaps
+    public FleetAnalytics analytics(ForkJoinPool pool, SeatInventoryFile inventory) {
+        TimetableSnapshot current = timetable;
+        FleetRoutes routes = fleetRoutes;
+        if (routes == null || routes.getTimetable() != current) {
+            routes = FleetRoutes.of(current);  // Only after the timetable changed; seats are captured every call
+            fleetRoutes = routes;
         }
+        return FleetAnalytics.capture(routes, pool, inventory);
     }
 
-    // Update existing train details
-    private void updateTrain(Train updatedTrain) {
-        OptionalInt index = IntStream.range(0, trainList.size())
-                .filter(i -> trainList.get(i).getTrainId().equalsIgnoreCase(updatedTrain.getTrainId()))
-                .findFirst();
-
-        if (index.isPresent()) {
-            trainList.set(index.getAsInt(), updatedTrain);
-            saveTrainListToFile();  // Save updated list to file
-        } else {
-            // If train not found in list, fallback to adding it
-            addTrain(updatedTrain);
+    // Search trains that include both source and destination stations in the correct order
+    public List<Train> searchTrains(String source, String destination) {
+        long start = Metric.SEARCH_SCAN.start();
+        try {
+            return timetable.search(source, destination);
+        } finally {
+            Metric.SEARCH_SCAN.stop(start);
         }
     }
 
-    // Write the in-memory train list to the JSON file
+    // Add a train, or replace the one with the same id, and save the train list
+    public void addTrain(Train newTrain) {
+        synchronized (writeLock) {
+            timetable = timetable.with(newTrain);  // Readers switch over on their next search
+            saveTrainListToFile();  // Under the lock so saves land in update order
+        }
+    }
+
+    // Write the in-memory train list to the localDb store (saveTrains takes the write lock itself)
     private void saveTrainListToFile() {
         try {
-            objectMapper.writeValue(new File(TRAIN_DB_PATH), trainList);
+            saveTrains();
         } catch (IOException ex) {
             ex.printStackTrace();
         }
     }
 
-    // Check if the train passes through source and destination in the right order
-    private Boolean validTrain(Train train, String source, String destination) {
-        List<String> stationOrder = train.getStations();
-
-        int sourceIndex = stationOrder.indexOf(source.toLowerCase());
-        int destinationIndex = stationOrder.indexOf(destination.toLowerCase());
-
-        // Ensure both stations exist and source comes before destination
-        return sourceIndex != -1 && destinationIndex != -1 && sourceIndex < destinationIndex;
+    // Persist the current train list (e.g. after seats were changed in place). Takes the
+    // write lock, so concurrent callers never write the file at once nor land out of order.
+    public void saveTrains() throws IOException {
+        if (trainStore == null) return;
+        synchronized (writeLock) {
+            long start = Metric.TRAIN_SAVE.start();
+            try {
+                trainStore.save(timetable.getTrains());
+            } catch (IOException ex) {
+                Metric.TRAIN_SAVE.markError();
+                throw ex;
+            } finally {
+                Metric.TRAIN_SAVE.stop(start);
+            }
+        }
     }
 }
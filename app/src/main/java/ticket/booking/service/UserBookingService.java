@@ -1,38 +1,67 @@
 package ticket.booking.service;
 
 import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import ticket.booking.analytics.FleetAnalytics;
 import ticket.booking.entities.Ticket;
 import ticket.booking.entities.Train;
 import ticket.booking.entities.User;
+import ticket.booking.metrics.Metric;
+import ticket.booking.storage.LocalDbStore;
+import ticket.booking.storage.SeatInventoryFile;
+import ticket.booking.storage.TicketArchive;
 import ticket.booking.util.UserServiceUtil;
+import ticket.booking.waitlist.Waitlist;
+import ticket.booking.waitlist.WaitlistEntry;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
 import java.util.*;
 
+import java.util.concurrent.ForkJoinPool;
+
 import static ticket.booking.App.capitalize;
 
 public class UserBookingService {
 
-    // Path to JSON file that stores user data
-    private static final String USER_FILE_PATH = "app/src/main/java/ticket/booking/localDb/users.json";
-
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    // Store that persists user data (users.json or users.smile in localDb)
+    private final LocalDbStore<List<User>> userStore;
+    // One timetable for the whole session; reloading it per call would rebuild the route index every time
+    private final TrainService trainService;
+    // Memory-mapped seat bitmaps, only used when -Dbooking.seats.file is set
+    private final SeatInventoryFile seatInventory;
+    // Paginated history; past trips live in a per-user archive next to the user file
+    private final BookingHistoryService bookingHistory;
+    // Per train and day queues; a cancelled seat goes straight to the next user waiting for it
+    private final Waitlist waitlist = new Waitlist();
     private List<User> userList = new ArrayList<>();
     private User currentUser;
     private Optional<User> loggedInUser = Optional.empty();
 
     // Constructor with current user (used during login)
     public UserBookingService(User user) throws IOException {
+        this();
         this.currentUser = user;
-        initUserFileIfMissing();  // Create file if not exists
-        loadUsersFromFile();      // Load user data into memory
     }
 
     public UserBookingService() throws IOException {
-        initUserFileIfMissing();
-        loadUsersFromFile();
+        this(new LocalDbStore<>("users", new TypeReference<List<User>>() {}));
+    }
+
+    public UserBookingService(LocalDbStore<List<User>> userStore) throws IOException {
+        this.userStore = userStore;
+        this.bookingHistory = new BookingHistoryService(
+                new TicketArchive(new File(userStore.getFile().getParentFile(), "archive"), userStore.getFormat()));
+        initUserFileIfMissing();  // Create file if not exists
+        loadUsersFromFile();      // Load user data into memory
+        this.trainService = new TrainService();
+        this.seatInventory = openSeatInventory();
+        waitlist.addListener(promotion -> System.out.printf(
+                "%nWaitlist: user %s was booked on train %s (Row %d, Column %d)%n",
+                promotion.getEntry().getUserId(), promotion.getEntry().getTrainId(),
+                promotion.getRow(), promotion.getCol()));
     }
 
     public void setCurrentUser(User user) {
@@ -49,129 +78,208 @@ public class UserBookingService {
         }
     }
 
-    // Initialize user JSON file if missing
+    // Initialize user file if missing
     private void initUserFileIfMissing() throws IOException {
-        File file = new File(USER_FILE_PATH);
-        if (!file.exists()) {
-            file.getParentFile().mkdirs();
-            file.createNewFile();
-            objectMapper.writeValue(file, new ArrayList<User>());
+        userStore.initIfMissing(new ArrayList<>());
+    }
+
+    // Map the seat inventory file if configured, building it from the train list on first use
+    private SeatInventoryFile openSeatInventory() throws IOException {
+        String path = System.getProperty("booking.seats.file");
+        if (path == null) return null;
+
+        Path file = Path.of(path);
+        SeatInventoryFile inventory = Files.exists(file)
+                ? SeatInventoryFile.open(file)
+                : SeatInventoryFile.create(file, trainService.getTrains());
+
+        // Durability: flush every N ms (default 1s), or only on demand when set to 0
+        long forceMillis = Long.getLong("booking.seats.forceMillis", 1000L);
+        if (forceMillis > 0) {
+            inventory.startPeriodicForce(forceMillis);
         }
+        return inventory;
     }
 
-    // Load users from the JSON file into memory
+    // Load users from the store into memory
     private void loadUsersFromFile() throws IOException {
-        userList = objectMapper.readValue(new File(USER_FILE_PATH), new TypeReference<>() {});
+        long start = Metric.USER_LOAD.start();
+        try {
+            userList = userStore.load();
+        } finally {
+            Metric.USER_LOAD.stop(start);
+        }
     }
 
     // Save the in-memory user list back to file
     private void saveUsersToFile() throws IOException {
-        objectMapper.writeValue(new File(USER_FILE_PATH), userList);
+        long start = Metric.USER_SAVE.start();
+        try {
+            userStore.save(userList);
+        } finally {
+            Metric.USER_SAVE.stop(start);
+        }
     }
 
     // Handles user registration
     public boolean signUp(User user) {
-        for (User u : userList) {
-            if (u.getName().equals(user.getName())) {
-                System.out.println("Username already taken.");
-                return false;
+        long start = Metric.SIGN_UP.start();
+        try {
+            for (User u : userList) {
+                if (u.getName().equals(user.getName())) {
+                    System.out.println("Username already taken.");
+                    Metric.SIGN_UP.markError();
+                    return false;
+                }
             }
-        }
 
-        try {
             userList.add(user);
             saveUsersToFile();
             return true;
         } catch (IOException e) {
             System.out.println("Signup failed: " + e.getMessage());
+            Metric.SIGN_UP.markError();
             return false;
+        } finally {
+            Metric.SIGN_UP.stop(start);
         }
     }
 
     // Handles user login by verifying credentials
     public boolean loginUser() {
+        long start = Metric.LOGIN.start();
         loggedInUser = userList.stream()
                 .filter(u -> u.getName().equals(currentUser.getName()) &&
                         UserServiceUtil.checkPassword(currentUser.getPassword(), u.getHashedPassword()))
                 .findFirst();
+        if (loggedInUser.isEmpty()) {
+            Metric.LOGIN.markError();
+        }
+        Metric.LOGIN.stop(start);
+        loggedInUser.ifPresent(this::archivePastTrips);
         return loggedInUser.isPresent();
     }
 
-    // Display all bookings of the currently logged-in user
-    public void fetchBookings() {
+    // Move trips dated before today out of the user record into the cold archive
+    private void archivePastTrips(User user) {
+        try {
+            if (bookingHistory.archivePastTrips(user, LocalDate.now()) > 0) {
+                updateUserInList(user);
+                saveUsersToFile();
+            }
+        } catch (IOException e) {
+            System.out.println("Could not archive past trips: " + e.getMessage());
+        }
+    }
+
+    // Display one page of bookings sorted by travel date; returns the cursor for the next page, or null
+    public String fetchBookingPage(String cursor, int pageSize, boolean includePastTrips) {
         if (loggedInUser.isEmpty()) {
             System.out.println("Please login to see bookings.");
-            return;
+            return null;
         }
 
-        List<Ticket> bookings = loggedInUser.get().getTicketsBooked();
+        BookingPage page;
+        try {
+            page = bookingHistory.page(loggedInUser.get(), cursor, pageSize, includePastTrips);
+        } catch (IOException e) {
+            System.out.println("Failed to load booking history: " + e.getMessage());
+            return null;
+        }
 
-        if (bookings.isEmpty()) {
+        if (page.getTickets().isEmpty()) {
             System.out.println("You have no bookings.");
-            return;
+            return null;
         }
 
-        System.out.println("\n" + "=".repeat(60));
-        System.out.println("Your Bookings:");
-        System.out.println("=".repeat(60));
-
-        for (Ticket ticket : bookings) {
-            System.out.println("+----------------------+-----------------------------------------------------+");
-            System.out.printf("| %-20s | %-50s |\n", "Ticket ID", ticket.getTicketId());
-            System.out.printf("| %-20s | %-50s |\n", "User ID", ticket.getUserId());
-            System.out.printf("| %-20s | %-50s |\n", "Source Station", capitalize(ticket.getSource()));
-            System.out.printf("| %-20s | %-50s |\n", "Destination Station", capitalize(ticket.getDestination()));
-            System.out.printf("| %-20s | %-50s |\n", "Travel Date", ticket.getDateOfTravel());
-            System.out.println("+----------------------+-----------------------------------------------------+");
+        if (cursor == null) {
+            System.out.println("\n" + "=".repeat(60));
+            System.out.println("Your Bookings:");
+            System.out.println("=".repeat(60));
         }
+        for (Ticket ticket : page.getTickets()) {
+            printTicket(ticket);
+        }
+        return page.getNextCursor();
+    }
+
+    private void printTicket(Ticket ticket) {
+        System.out.println("+----------------------+-----------------------------------------------------+");
+        System.out.printf("| %-20s | %-50s |\n", "Ticket ID", ticket.getTicketId());
+        System.out.printf("| %-20s | %-50s |\n", "User ID", ticket.getUserId());
+        System.out.printf("| %-20s | %-50s |\n", "Source Station", capitalize(ticket.getSource()));
+        System.out.printf("| %-20s | %-50s |\n", "Destination Station", capitalize(ticket.getDestination()));
+        System.out.printf("| %-20s | %-50s |\n", "Travel Date", ticket.getDateOfTravel());
+        System.out.println("+----------------------+-----------------------------------------------------+");
     }
 
     // Returns list of trains between source and destination
     public List<Train> getTrains(String source, String destination) {
+        long start = Metric.SEARCH.start();
         try {
-            return new TrainService().searchTrains(source, destination);
-        } catch (IOException e) {
-            System.out.println("Failed to fetch trains: " + e.getMessage());
-            return Collections.emptyList();
+            return trainService.searchTrains(source, destination);
+        } finally {
+            Metric.SEARCH.stop(start);
         }
     }
 
     // Return the seat layout of a train
     public List<List<Integer>> fetchSeats(Train train) {
+        if (usesSeatInventory(train)) {
+            return seatInventory.toSeatMatrix(train.getTrainId());
+        }
         return train.getSeats();
     }
 
+    // Fleet-wide aggregations; trains in the seat inventory are counted from its bitmaps
+    public FleetAnalytics analytics() {
+        return trainService.analytics(ForkJoinPool.commonPool(), seatInventory);
+    }
+
     // Book a seat in the selected train
     public boolean bookTrainSeat(Train train, int row, int seat) {
+        long start = Metric.BOOK.start();
         try {
-            List<List<Integer>> seats = train.getSeats();
-            if (!isSeatAvailable(seats, row, seat)) {
-                System.out.println("Seat is already booked or invalid.");
-                return false;
+            boolean booked = bookSeatFor(loggedInUser.get(), train, row, seat);
+            if (!booked) {
+                Metric.BOOK.markError();
             }
+            return booked;
+        } finally {
+            Metric.BOOK.stop(start);
+        }
+    }
 
-            // Mark the seat as booked
-            seats.get(row).set(seat, 1);
-            train.setSeats(seats);
-
-            new TrainService().addTrain(train); // Save updated seat map
-
-            // Generate ticket details
-            String ticketId = UUID.randomUUID().toString();
-            String userId = loggedInUser.get().getUserId();
-            String source = getFirstStation(train);
-            String destination = getLastStation(train);
-            String date = java.time.LocalDate.now().toString();
-            String time = train.getStationTimes().get(destination);
-
-            String ticketInfo = String.format("Train: %s | From: %s To: %s | Seat: Row %d, Column %d | Time: %s",
-                    train.getTrainId(), source, destination, row, seat, time);
+    // Claim a seat and add the ticket to the given user (the logged-in one, or a promoted waitlisted one)
+    private boolean bookSeatFor(User user, Train train, int row, int seat) {
+        try {
+            if (usesSeatInventory(train)) {
+                // Flip the seat bit in the mapped file, no train file rewrite needed
+                if (!seatInventory.claim(train.getTrainId(), row, seat)) {
+                    System.out.println("Seat is already booked or invalid.");
+                    return false;
+                }
+                train.setSeats(seatInventory.toSeatMatrix(train.getTrainId()));
+            } else {
+                Train live = liveTrain(train);
+                List<List<Integer>> seats = live.getSeats();
+                if (!isSeatAvailable(seats, row, seat)) {
+                    System.out.println("Seat is already booked or invalid.");
+                    return false;
+                }
+
+                // Mark the seat as booked
+                seats.get(row).set(seat, 1);
+                train.setSeats(seats);  // Keep a caller's copy in step with the timetable
+
+                saveTrain(live); // Save updated seat map
+            }
 
             // Create and store the ticket
-            Ticket ticket = new Ticket(ticketId, userId, source, destination, date, train, ticketInfo, row, seat);
-            loggedInUser.get().getTicketsBooked().add(ticket);
+            Ticket ticket = createTicket(user.getUserId(), train, row, seat);
+            user.getTicketsBooked().add(ticket);
 
-            updateUserInList(loggedInUser.get());
+            updateUserInList(user);
             saveUsersToFile();
 
             return true;
@@ -181,74 +289,195 @@ public class UserBookingService {
         }
     }
 
-    // Cancel a selected ticket from the user’s bookings
-    public void cancelBooking() {
+    // Queue the logged-in user for today's run of the train, or book a seat at once if one is free and nobody waits
+    public void joinWaitlist(Train train) {
         if (loggedInUser.isEmpty()) {
-            System.out.println("No user is logged in.");
+            System.out.println("Please login to join a waitlist.");
             return;
         }
 
         User user = loggedInUser.get();
-        List<Ticket> bookings = user.getTicketsBooked();
+        int[] bookedSeat = new int[2];
+        int position = waitlist.join(train.getTrainId(), LocalDate.now().toString(), user.getUserId(),
+                () -> bookFirstFreeSeat(user, train, bookedSeat),
+                (row, col) -> promote(user, train.getTrainId(), row, col));
+
+        if (position == 0) {
+            System.out.printf("A seat was free after all: booked Row %d, Column %d.%n", bookedSeat[0], bookedSeat[1]);
+        } else if (position == Waitlist.ALREADY_WAITING) {
+            System.out.println("You are already on the waitlist for train " + train.getTrainId() + ".");
+        } else {
+            System.out.println("You are number " + position + " on the waitlist for train " + train.getTrainId()
+                    + ". You will be booked automatically when a seat frees up.");
+        }
+    }
 
-        if (bookings == null || bookings.isEmpty()) {
-            System.out.println("You have no bookings to cancel.");
-            return;
+    // Book the first free seat for the user, reporting it through `bookedSeat`; false if the train is full
+    private boolean bookFirstFreeSeat(User user, Train train, int[] bookedSeat) {
+        List<List<Integer>> seats = fetchSeats(liveTrain(train));
+        for (int row = 0; row < seats.size(); row++) {
+            for (int col = 0; col < seats.get(row).size(); col++) {
+                if (seats.get(row).get(col) == 0 && bookSeatFor(user, train, row, col)) {
+                    bookedSeat[0] = row;
+                    bookedSeat[1] = col;
+                    return true;
+                }
+            }
         }
+        return false;
+    }
 
-        // Show all bookings
-        System.out.println("\n----------------------------------------");
-        System.out.println("Your Bookings:");
-        for (int i = 0; i < bookings.size(); i++) {
-            Ticket t = bookings.get(i);
-            System.out.println("----------------------------------------");
-            System.out.println("[" + (i + 1) + "] Ticket");
-            System.out.println("  Ticket ID   : " + t.getTicketId());
-            System.out.println("  User ID     : " + t.getUserId());
-            System.out.println("  From        : " + capitalize(t.getSource()));
-            System.out.println("  To          : " + capitalize(t.getDestination()));
-            System.out.println("  Travel Date : " + t.getDateOfTravel());
+    // Give a freed seat to a waitlisted user, booking it on the timetable's copy of the train
+    private boolean promote(User user, String trainId, int row, int col) {
+        Optional<Train> train = trainService.findTrain(trainId);
+        return train.isPresent() && bookSeatFor(user, train.get(), row, col);
+    }
+
+    // Cancel a selected ticket from the user’s bookings, shown a page at a time. Archived
+    // (past) trips are listed too: a train has one seat map for every date, so their seats
+    // stay held until the ticket is cancelled.
+    public void cancelBooking(int pageSize) {
+        if (loggedInUser.isEmpty()) {
+            System.out.println("No user is logged in.");
+            return;
         }
-        System.out.println("----------------------------------------");
 
-        // Prompt for cancellation choice
-        System.out.print("\nEnter the number of the booking you want to cancel: ");
+        User user = loggedInUser.get();
         Scanner sc = new Scanner(System.in);
-        int choice = sc.nextInt();
+        Ticket ticketToCancel = null;
+        String cursor = null;
+        while (ticketToCancel == null) {
+            BookingPage page;
+            try {
+                page = bookingHistory.page(user, cursor, pageSize, true);
+            } catch (IOException e) {
+                System.out.println("Failed to load bookings: " + e.getMessage());
+                return;
+            }
+            if (cursor == null && page.getTickets().isEmpty()) {
+                System.out.println("You have no bookings to cancel.");
+                return;
+            }
 
-        if (choice < 1 || choice > bookings.size()) {
-            System.out.println("Invalid choice.");
-            return;
+            System.out.println("\n----------------------------------------");
+            System.out.println("Your Bookings:");
+            List<Ticket> shown = page.getTickets();
+            for (int i = 0; i < shown.size(); i++) {
+                Ticket t = shown.get(i);
+                System.out.println("----------------------------------------");
+                System.out.println("[" + (i + 1) + "] Ticket");
+                System.out.println("  Ticket ID   : " + t.getTicketId());
+                System.out.println("  User ID     : " + t.getUserId());
+                System.out.println("  From        : " + capitalize(t.getSource()));
+                System.out.println("  To          : " + capitalize(t.getDestination()));
+                System.out.println("  Travel Date : " + t.getDateOfTravel());
+            }
+            System.out.println("----------------------------------------");
+
+            // Prompt for cancellation choice
+            System.out.print(page.hasMore()
+                    ? "\nEnter the number of the booking you want to cancel, or 0 to see more: "
+                    : "\nEnter the number of the booking you want to cancel: ");
+            int choice = sc.nextInt();
+
+            if (choice == 0 && page.hasMore()) {
+                cursor = page.getNextCursor();
+            } else if (choice < 1 || choice > shown.size()) {
+                System.out.println("Invalid choice.");
+                return;
+            } else {
+                ticketToCancel = shown.get(choice - 1);
+            }
         }
 
-        Ticket ticketToCancel = bookings.get(choice - 1);
+        cancelTicket(user, ticketToCancel);
+    }
+
+    // Cancel one of the user's tickets, upcoming or archived; the next user waiting for that
+    // train and day, if any, gets the seat. False if the ticket is not the user's.
+    boolean cancelTicket(User user, Ticket ticketToCancel) {
+        long start = Metric.CANCEL.start();
+
+        // Take the ticket off the user (or out of the archive) first, so it is only cancelled once
+        if (!user.getTicketsBooked().remove(ticketToCancel)) {
+            try {
+                if (!bookingHistory.removeArchived(user, ticketToCancel.getTicketId())) {
+                    System.out.println("No such booking.");
+                    Metric.CANCEL.markError();
+                    Metric.CANCEL.stop(start);
+                    return false;
+                }
+            } catch (IOException e) {
+                System.out.println("Error updating booking archive: " + e.getMessage());
+                Metric.CANCEL.markError();
+                Metric.CANCEL.stop(start);
+                return false;
+            }
+        }
 
         // Free the seat in train
         Train train = ticketToCancel.getTrain();
-        List<List<Integer>> seats = train.getSeats();
         int row = ticketToCancel.getSeatRow();
         int col = ticketToCancel.getSeatCol();
-        seats.get(row).set(col, 0);
 
-        train.setSeats(seats);
-        try {
-            new TrainService().addTrain(train);
-        } catch (IOException e) {
-            System.out.println("Error updating train seat info: " + e.getMessage());
-        }
+        // The next user on the waitlist, if any, gets the seat in the same step
+        Optional<WaitlistEntry> promoted = waitlist.release(train.getTrainId(),
+                BookingHistoryService.travelDate(ticketToCancel), row, col, () -> freeSeat(train, row, col));
 
-        // Remove ticket from user list
-        bookings.remove(choice - 1);
         updateUserInList(user);
 
         try {
             saveUsersToFile();
             System.out.println("Booking cancelled successfully.");
+            promoted.ifPresent(entry -> System.out.println("The seat went to the next user on the waitlist."));
+            return true;
         } catch (IOException e) {
             System.out.println("Error saving user data: " + e.getMessage());
+            Metric.CANCEL.markError();
+            return false;
+        } finally {
+            Metric.CANCEL.stop(start);
+        }
+    }
+
+    // Mark a seat free again and save the train. The ticket's copy of the train may be stale
+    // (e.g. a waitlist promotion booked a seat since), so the timetable's copy is updated.
+    private void freeSeat(Train train, int row, int col) {
+        if (usesSeatInventory(train)) {
+            seatInventory.release(train.getTrainId(), row, col);
+            train.setSeats(seatInventory.toSeatMatrix(train.getTrainId()));
+        } else {
+            try {
+                Train live = liveTrain(train);
+                if (live.getSeats() == null) return;  // archived copy of a train no longer in the timetable
+                live.getSeats().get(row).set(col, 0);
+                saveTrain(live);
+            } catch (IOException e) {
+                System.out.println("Error updating train seat info: " + e.getMessage());
+                Metric.CANCEL.markError();
+            }
         }
     }
 
+    // The timetable's instance of a train, so seat changes land in what gets saved
+    private Train liveTrain(Train train) {
+        return trainService.findTrain(train.getTrainId()).orElse(train);
+    }
+
+    // Persist a seat change; only a train the timetable does not know yet needs a republish
+    private void saveTrain(Train live) throws IOException {
+        if (trainService.findTrain(live.getTrainId()).orElse(null) == live) {
+            trainService.saveTrains();
+        } else {
+            trainService.addTrain(live);
+        }
+    }
+
+    // Whether this train's seats live in the memory-mapped inventory
+    private boolean usesSeatInventory(Train train) {
+        return seatInventory != null && seatInventory.contains(train.getTrainId());
+    }
+
     // Check if a seat is valid and available
     private boolean isSeatAvailable(List<List<Integer>> seats, int row, int col) {
         return row >= 0 && row < seats.size() &&
@@ -256,13 +485,27 @@ public class UserBookingService {
                 seats.get(row).get(col) == 0;
     }
 
+    // Build a ticket for a freshly booked seat
+    static Ticket createTicket(String userId, Train train, int row, int seat) {
+        String ticketId = UUID.randomUUID().toString();
+        String source = getFirstStation(train);
+        String destination = getLastStation(train);
+        String date = java.time.LocalDate.now().toString();
+        String time = train.getStationTimes().get(destination);
+
+        String ticketInfo = String.format("Train: %s | From: %s To: %s | Seat: Row %d, Column %d | Time: %s",
+                train.getTrainId(), source, destination, row, seat, time);
+
+        return new Ticket(ticketId, userId, source, destination, date, train, ticketInfo, row, seat);
+    }
+
     // Get first station from the route
-    private String getFirstStation(Train train) {
+    private static String getFirstStation(Train train) {
         return train.getStationTimes().keySet().stream().findFirst().orElse("Unknown");
     }
 
     // Get last station from the route
-    private String getLastStation(Train train) {
+    private static String getLastStation(Train train) {
         List<String> stations = new ArrayList<>(train.getStationTimes().keySet());
         return stations.get(stations.size() - 1);
     }
@@ -0,0 +1,78 @@
+package ticket.booking.storage;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+
+import java.io.File;
+import java.io.IOException;
+
+// One persisted localDb collection (e.g. "users" or "trains") in the configured format.
+// If the configured file is missing but a JSON copy exists, the JSON is imported once.
+public class LocalDbStore<T> {
+
+    public static final String DEFAULT_DIR = "app/src/main/java/ticket/booking/localDb";
+
+    private final File dir;
+    private final String name;
+    private final StorageFormat format;
+    private final TypeReference<T> type;
+
+    // Store in the configured directory (-Dbooking.localDb.dir) and format (-Dbooking.storage.format)
+    public LocalDbStore(String name, TypeReference<T> type) {
+        this(new File(System.getProperty("booking.localDb.dir", DEFAULT_DIR)), name, StorageFormat.fromConfig(), type);
+    }
+
+    public LocalDbStore(File dir, String name, StorageFormat format, TypeReference<T> type) {
+        this.dir = dir;
+        this.name = name;
+        this.format = format;
+        this.type = type;
+    }
+
+    public File getFile() {
+        return format.fileFor(dir, name);
+    }
+
+    public StorageFormat getFormat() {
+        return format;
+    }
+
+    public boolean exists() {
+        return getFile().exists() || jsonFile().exists();
+    }
+
+    // Create the file with the given content if neither it nor a JSON copy exists yet
+    public void initIfMissing(T emptyValue) throws IOException {
+        if (!exists()) {
+            dir.mkdirs();
+            save(emptyValue);
+        }
+    }
+
+    public T load() throws IOException {
+        File file = getFile();
+        if (!file.exists() && format != StorageFormat.JSON && jsonFile().exists()) {
+            T imported = StorageFormat.JSON.read(jsonFile(), type);
+            save(imported);
+            return imported;
+        }
+        return format.read(file, type);
+    }
+
+    public void save(T value) throws IOException {
+        format.write(getFile(), value);
+    }
+
+    // Lossless export to JSON for tooling, independent of the configured format
+    public void exportJson(File target) throws IOException {
+        StorageFormat.JSON.write(target, load());
+    }
+
+    // Replace the stored data with the contents of a JSON file
+    public void importJson(File source) throws IOException {
+        save(StorageFormat.JSON.read(source, type));
+    }
+
+    private File jsonFile() {
+        return StorageFormat.JSON.fileFor(dir, name);
+    }
+}
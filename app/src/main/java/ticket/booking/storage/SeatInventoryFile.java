@@ -0,0 +1,308 @@
+package ticket.booking.storage;
+
+import ticket.booking.entities.Train;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Seat state of every train in one memory-mapped file, one bit per seat.
+//
+// Layout (little-endian, so the file reads the same on any CPU):
+//   header  [magic:int][version:int][trainCount:int][reserved:int][dataOffset:long][reserved:long]
+//   index   trainCount x [idLength:byte][id:47 bytes UTF-8][rows:int][cols:int][bitmapOffset:long]
+//   bitmaps one 8-byte aligned long[] per train, bit (row * cols + col) set = booked
+//
+// Opening the file only reads the index; seat claims flip bits in place with a CAS,
+// and force() (on demand or periodic) makes them durable.
+public class SeatInventoryFile implements AutoCloseable {
+
+    private static final int MAGIC = 0x53454154;  // "SEAT"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int ENTRY_SIZE = 64;
+    private static final int MAX_ID_BYTES = 47;
+
+    private static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ORDER);
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final Map<String, Integer> slotByTrainId;
+    private final int[] rows;
+    private final int[] cols;
+    private final long[] bitmapOffsets;
+    private volatile boolean dirty;
+    private ScheduledExecutorService flusher;
+
+    private SeatInventoryFile(FileChannel channel, MappedByteBuffer buffer) throws IOException {
+        this.channel = channel;
+        this.buffer = buffer;
+        buffer.order(ORDER);
+
+        // Check every size before reading it, so a short or damaged file fails with an IOException
+        long size = channel.size();
+        if (size < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw corrupt("Not a seat inventory file (bad magic or version)");
+        }
+
+        int trainCount = buffer.getInt(8);
+        if (trainCount < 0 || HEADER_SIZE + (long) trainCount * ENTRY_SIZE > size) {
+            throw corrupt("Seat inventory index is truncated (" + trainCount + " trains, " + size + " bytes)");
+        }
+        slotByTrainId = new HashMap<>(trainCount * 2);
+        rows = new int[trainCount];
+        cols = new int[trainCount];
+        bitmapOffsets = new long[trainCount];
+
+        byte[] idBytes = new byte[MAX_ID_BYTES];
+        for (int slot = 0; slot < trainCount; slot++) {
+            int entry = HEADER_SIZE + slot * ENTRY_SIZE;
+            int idLength = buffer.get(entry) & 0xFF;
+            rows[slot] = buffer.getInt(entry + 48);
+            cols[slot] = buffer.getInt(entry + 52);
+            bitmapOffsets[slot] = buffer.getLong(entry + 56);
+            if (idLength > MAX_ID_BYTES || rows[slot] < 0 || cols[slot] < 0 || bitmapOffsets[slot] < HEADER_SIZE
+                    || bitmapOffsets[slot] % 8 != 0 || bitmapOffsets[slot] + bitmapBytes(rows[slot], cols[slot]) > size) {
+                throw corrupt("Seat inventory entry " + slot + " is damaged or its bitmap is past the end of the file");
+            }
+            buffer.get(entry + 1, idBytes, 0, idLength);
+            slotByTrainId.put(new String(idBytes, 0, idLength, StandardCharsets.UTF_8), slot);
+        }
+    }
+
+    // Close the file and describe why it cannot be used
+    private IOException corrupt(String message) throws IOException {
+        channel.close();
+        return new IOException(message);
+    }
+
+    // Map an existing inventory file
+    public static SeatInventoryFile open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new SeatInventoryFile(channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size()));
+    }
+
+    // Build a new inventory file from the trains' current seat matrices (duplicate ids keep the first train)
+    public static SeatInventoryFile create(Path path, List<Train> trains) throws IOException {
+        Map<String, Train> unique = new LinkedHashMap<>();
+        for (Train train : trains) {
+            unique.putIfAbsent(train.getTrainId(), train);
+        }
+        List<Train> entries = new ArrayList<>(unique.values());
+
+        long dataOffset = align8(HEADER_SIZE + (long) entries.size() * ENTRY_SIZE);
+        long size = dataOffset;
+        for (Train train : entries) {
+            size += bitmapBytes(seatRows(train), seatCols(train));
+        }
+
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        buffer.order(ORDER);
+
+        long bitmapOffset = dataOffset;
+        for (int slot = 0; slot < entries.size(); slot++) {
+            Train train = entries.get(slot);
+            byte[] id = train.getTrainId().getBytes(StandardCharsets.UTF_8);
+            if (id.length > MAX_ID_BYTES) {
+                channel.close();
+                throw new IOException("Train id too long for seat inventory: " + train.getTrainId());
+            }
+            int rowCount = seatRows(train);
+            int colCount = seatCols(train);
+
+            int entry = HEADER_SIZE + slot * ENTRY_SIZE;
+            buffer.put(entry, (byte) id.length);
+            buffer.put(entry + 1, id);
+            buffer.putInt(entry + 48, rowCount);
+            buffer.putInt(entry + 52, colCount);
+            buffer.putLong(entry + 56, bitmapOffset);
+
+            for (int r = 0; r < rowCount; r++) {
+                List<Integer> row = train.getSeats().get(r);
+                for (int c = 0; c < row.size() && c < colCount; c++) {
+                    if (row.get(c) != 0) {
+                        int bit = r * colCount + c;
+                        int at = (int) (bitmapOffset + (bit >>> 6) * 8L);
+                        buffer.putLong(at, buffer.getLong(at) | (1L << (bit & 63)));
+                    }
+                }
+            }
+            bitmapOffset += bitmapBytes(rowCount, colCount);
+        }
+
+        // Make the index and bitmaps durable before the magic goes in: the OS may write mapped
+        // pages back in any order, so without this barrier a crash could leave a valid-looking
+        // header in front of missing data
+        buffer.putInt(8, entries.size());
+        buffer.putLong(16, dataOffset);
+        buffer.force();
+        channel.force(true);  // file length too
+        buffer.putInt(4, VERSION);
+        buffer.putInt(0, MAGIC);
+        buffer.force();
+        return new SeatInventoryFile(channel, buffer);
+    }
+
+    public boolean contains(String trainId) {
+        return slotByTrainId.containsKey(trainId);
+    }
+
+    public int trainCount() {
+        return rows.length;
+    }
+
+    // Atomically mark a seat as booked; false if it was already booked or does not exist
+    public boolean claim(String trainId, int row, int col) {
+        return flip(trainId, row, col, true);
+    }
+
+    // Atomically mark a seat as free; false if it was not booked or does not exist
+    public boolean release(String trainId, int row, int col) {
+        return flip(trainId, row, col, false);
+    }
+
+    public boolean isBooked(String trainId, int row, int col) {
+        int slot = slotOf(trainId);
+        if (!validSeat(slot, row, col)) return false;
+        int bit = row * cols[slot] + col;
+        long word = (long) LONGS.getVolatile(buffer, wordOffset(slot, bit));
+        return (word & (1L << (bit & 63))) != 0;
+    }
+
+    public int freeSeats(String trainId) {
+        int slot = slotOf(trainId);
+        if (slot < 0) return 0;
+        int booked = 0;
+        int words = (int) (bitmapBytes(rows[slot], cols[slot]) / 8);
+        for (int w = 0; w < words; w++) {
+            booked += Long.bitCount((long) LONGS.getVolatile(buffer, (int) bitmapOffsets[slot] + w * 8));
+        }
+        return rows[slot] * cols[slot] - booked;
+    }
+
+    // Copy a train's seat bits (at most `limit` seats) into bits from word `offset` on; false if the train is not in the file
+    public boolean copySeatBits(String trainId, long[] bits, int offset, int limit) {
+        int slot = slotOf(trainId);
+        if (slot < 0) return false;
+        int seats = Math.min(limit, rows[slot] * cols[slot]);
+        for (int w = 0; w * 64 < seats; w++) {
+            long word = (long) LONGS.getVolatile(buffer, (int) bitmapOffsets[slot] + w * 8);
+            int remaining = seats - w * 64;
+            bits[offset + w] = remaining >= 64 ? word : word & ((1L << remaining) - 1);
+        }
+        return true;
+    }
+
+    // Seat layout in the same shape as Train.getSeats() (0 = empty, 1 = booked)
+    public List<List<Integer>> toSeatMatrix(String trainId) {
+        int slot = slotOf(trainId);
+        List<List<Integer>> matrix = new ArrayList<>();
+        if (slot < 0) return matrix;
+        for (int r = 0; r < rows[slot]; r++) {
+            List<Integer> row = new ArrayList<>(cols[slot]);
+            for (int c = 0; c < cols[slot]; c++) {
+                row.add(isBooked(trainId, r, c) ? 1 : 0);
+            }
+            matrix.add(row);
+        }
+        return matrix;
+    }
+
+    // Flush changed pages to disk
+    public void force() {
+        if (dirty) {
+            dirty = false;
+            buffer.force();
+        }
+    }
+
+    // Flush in the background every periodMillis
+    public synchronized void startPeriodicForce(long periodMillis) {
+        if (flusher != null) return;
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "seat-inventory-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleAtFixedRate(this::force, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+        dirty = true;
+        force();
+        channel.close();
+    }
+
+    private boolean flip(String trainId, int row, int col, boolean book) {
+        int slot = slotOf(trainId);
+        if (!validSeat(slot, row, col)) return false;
+
+        int bit = row * cols[slot] + col;
+        int offset = wordOffset(slot, bit);
+        long mask = 1L << (bit & 63);
+        while (true) {
+            long word = (long) LONGS.getVolatile(buffer, offset);
+            boolean booked = (word & mask) != 0;
+            if (booked == book) return false;
+            long updated = book ? word | mask : word & ~mask;
+            if (LONGS.compareAndSet(buffer, offset, word, updated)) {
+                dirty = true;
+                return true;
+            }
+        }
+    }
+
+    private int slotOf(String trainId) {
+        Integer slot = slotByTrainId.get(trainId);
+        return slot == null ? -1 : slot;
+    }
+
+    private boolean validSeat(int slot, int row, int col) {
+        return slot >= 0 && row >= 0 && row < rows[slot] && col >= 0 && col < cols[slot];
+    }
+
+    private int wordOffset(int slot, int bit) {
+        return (int) (bitmapOffsets[slot] + (bit >>> 6) * 8L);
+    }
+
+    private static int seatRows(Train train) {
+        return train.getSeats() == null ? 0 : train.getSeats().size();
+    }
+
+    private static int seatCols(Train train) {
+        int max = 0;
+        for (int r = 0; r < seatRows(train); r++) {
+            max = Math.max(max, train.getSeats().get(r).size());
+        }
+        return max;
+    }
+
+    private static long bitmapBytes(int rows, int cols) {
+        return Math.max(1, ((long) rows * cols + 63) / 64) * 8;
+    }
+
+    private static long align8(long value) {
+        return (value + 7) & ~7L;
+    }
+}
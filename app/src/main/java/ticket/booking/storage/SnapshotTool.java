@@ -0,0 +1,40 @@
+package ticket.booking.storage;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import ticket.booking.entities.Train;
+import ticket.booking.entities.User;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+// Command line import/export between a localDb snapshot and plain JSON.
+// Usage: SnapshotTool export|import users|trains json|smile <file.json>
+public class SnapshotTool {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 4) {
+            System.out.println("Usage: SnapshotTool export|import users|trains json|smile <file.json>");
+            return;
+        }
+
+        File dir = new File(System.getProperty("booking.localDb.dir", LocalDbStore.DEFAULT_DIR));
+        StorageFormat format = StorageFormat.valueOf(args[2].toUpperCase());
+        LocalDbStore<?> store = switch (args[1]) {
+            case "users" -> new LocalDbStore<>(dir, "users", format, new TypeReference<List<User>>() {});
+            case "trains" -> new LocalDbStore<>(dir, "trains", format, new TypeReference<List<Train>>() {});
+            default -> throw new IllegalArgumentException("Unknown collection: " + args[1]);
+        };
+
+        File jsonFile = new File(args[3]);
+        if (args[0].equals("export")) {
+            store.exportJson(jsonFile);
+            System.out.println("Exported " + store.getFile() + " to " + jsonFile);
+        } else if (args[0].equals("import")) {
+            store.importJson(jsonFile);
+            System.out.println("Imported " + jsonFile + " into " + store.getFile());
+        } else {
+            System.out.println("Unknown command: " + args[0]);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package ticket.booking.storage;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+
+import java.io.File;
+import java.io.IOException;
+
+// On-disk encodings for the localDb files. Both go through the same Jackson
+// annotations, so a file can be converted between them without losing data.
+public enum StorageFormat {
+
+    // Human readable text JSON (the original format)
+    JSON("json", new ObjectMapper()),
+
+    // Binary Smile: field names and short repeated values such as station names
+    // are written once and then referenced by index
+    SMILE("smile", new ObjectMapper(SmileFactory.builder()
+            .enable(SmileGenerator.Feature.CHECK_SHARED_NAMES)
+            .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+            .build()));
+
+    private final String extension;
+    private final ObjectMapper objectMapper;
+
+    StorageFormat(String extension, ObjectMapper objectMapper) {
+        this.extension = extension;
+        this.objectMapper = objectMapper;
+    }
+
+    // Format selected with -Dbooking.storage.format=json|smile (defaults to json)
+    public static StorageFormat fromConfig() {
+        return valueOf(System.getProperty("booking.storage.format", "json").toUpperCase());
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public File fileFor(File dir, String name) {
+        return new File(dir, name + "." + extension);
+    }
+
+    public <T> T read(File file, TypeReference<T> type) throws IOException {
+        return objectMapper.readValue(file, type);
+    }
+
+    public void write(File file, Object value) throws IOException {
+        objectMapper.writeValue(file, value);
+    }
+}
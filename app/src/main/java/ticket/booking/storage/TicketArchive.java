@@ -0,0 +1,61 @@
+package ticket.booking.storage;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import ticket.booking.entities.Ticket;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Cold storage for past trips: one file per user under localDb/archive, read only
+// when a caller explicitly asks for archived history.
+public class TicketArchive {
+
+    private static final TypeReference<List<Ticket>> TICKETS = new TypeReference<>() {};
+
+    private final File dir;
+    private final StorageFormat format;
+
+    // Archive next to the configured localDb files
+    public TicketArchive() {
+        this(new File(System.getProperty("booking.localDb.dir", LocalDbStore.DEFAULT_DIR), "archive"),
+                StorageFormat.fromConfig());
+    }
+
+    public TicketArchive(File dir, StorageFormat format) {
+        this.dir = dir;
+        this.format = format;
+    }
+
+    public boolean hasArchive(String userId) {
+        return store(userId).exists();
+    }
+
+    // All archived tickets of a user (empty if none were archived yet)
+    public List<Ticket> load(String userId) throws IOException {
+        LocalDbStore<List<Ticket>> store = store(userId);
+        return store.exists() ? store.load() : new ArrayList<>();
+    }
+
+    // Add tickets to a user's archive
+    public void append(String userId, List<Ticket> tickets) throws IOException {
+        if (tickets.isEmpty()) return;
+        List<Ticket> archived = load(userId);
+        archived.addAll(tickets);
+        dir.mkdirs();
+        store(userId).save(archived);
+    }
+
+    // Remove one ticket from a user's archive; false if it was not archived
+    public boolean remove(String userId, String ticketId) throws IOException {
+        List<Ticket> archived = load(userId);
+        if (!archived.removeIf(ticket -> ticket.getTicketId().equals(ticketId))) return false;
+        store(userId).save(archived);
+        return true;
+    }
+
+    private LocalDbStore<List<Ticket>> store(String userId) {
+        return new LocalDbStore<>(dir, userId, format, TICKETS);
+    }
+}
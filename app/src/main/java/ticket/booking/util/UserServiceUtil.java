@@ -1,16 +1,27 @@
 package ticket.booking.util;
 
 import org.mindrot.jbcrypt.BCrypt;
+import ticket.booking.metrics.Metric;
 
 public class UserServiceUtil
 {
     // Hashes a plain text password using BCrypt
     public static String hashPassword(String plainPassword){
-        return BCrypt.hashpw(plainPassword, BCrypt.gensalt());
+        long start = Metric.PASSWORD_HASH.start();
+        try {
+            return BCrypt.hashpw(plainPassword, BCrypt.gensalt());
+        } finally {
+            Metric.PASSWORD_HASH.stop(start);
+        }
     }
 
     // Checks if a plain password matches the hashed password
     public static boolean checkPassword(String plainPassword, String hashedPassword){
-        return BCrypt.checkpw(plainPassword, hashedPassword);
+        long start = Metric.PASSWORD_CHECK.start();
+        try {
+            return BCrypt.checkpw(plainPassword, hashedPassword);
+        } finally {
+            Metric.PASSWORD_CHECK.stop(start);
+        }
     }
 }
@@ -0,0 +1,34 @@
+package ticket.booking.waitlist;
+
+// A waitlisted user who was given a freed seat
+public class Promotion {
+
+    private final WaitlistEntry entry;
+    private final int row;
+    private final int col;
+    private final long releasedAtNanos;
+
+    Promotion(WaitlistEntry entry, int row, int col, long releasedAtNanos) {
+        this.entry = entry;
+        this.row = row;
+        this.col = col;
+        this.releasedAtNanos = releasedAtNanos;
+    }
+
+    public WaitlistEntry getEntry() {
+        return entry;
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    public int getCol() {
+        return col;
+    }
+
+    // System.nanoTime() when the cancellation that freed the seat started
+    public long getReleasedAtNanos() {
+        return releasedAtNanos;
+    }
+}
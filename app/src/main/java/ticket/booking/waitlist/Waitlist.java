@@ -0,0 +1,155 @@
+package ticket.booking.waitlist;
+
+import ticket.booking.metrics.Metric;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+// FIFO waitlists per train and travel date. Joining, freeing a seat and handing it to the
+// next user in line all happen under that line's lock, so a freed seat goes straight to
+// the head of the queue without anyone rescanning the seat map. Listeners hear about
+// promotions afterwards, on a separate thread, in the order they happened.
+public class Waitlist implements AutoCloseable {
+
+    // Books the given freed seat for a waitlisted user; false if the seat was taken in the meantime
+    public interface SeatAssignment {
+        boolean assign(int row, int col);
+    }
+
+    public interface PromotionListener {
+        void promoted(Promotion promotion);
+    }
+
+    // join() result for a user who is already in that line
+    public static final int ALREADY_WAITING = -1;
+
+    private final ConcurrentHashMap<String, Line> lines = new ConcurrentHashMap<>();
+    private final List<PromotionListener> listeners = new CopyOnWriteArrayList<>();
+    private final ExecutorService notifier;
+
+    public Waitlist() {
+        this.notifier = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "waitlist-notifier");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void addListener(PromotionListener listener) {
+        listeners.add(listener);
+    }
+
+    // Try to book right away when nobody is waiting; otherwise queue the user. Returns 0 if
+    // tryBook succeeded, the user's 1-based position in the queue, or ALREADY_WAITING if the
+    // user is in this line already (one place per user, so nobody collects several seats).
+    public int join(String trainId, String date, String userId, BooleanSupplier tryBook, SeatAssignment onSeatFreed) {
+        String key = key(trainId, date);
+        while (true) {
+            Line line = lines.computeIfAbsent(key, k -> new Line());
+            synchronized (line) {
+                if (line.retired) continue;  // emptied and removed meanwhile, use the new one
+                for (WaitlistEntry entry : line.queue) {
+                    if (entry.getUserId().equals(userId)) return ALREADY_WAITING;
+                }
+                if (line.queue.isEmpty() && tryBook.getAsBoolean()) {
+                    retireIfEmpty(key, line);
+                    return 0;
+                }
+                line.queue.add(new WaitlistEntry(trainId, date, userId, onSeatFreed));
+                return line.queue.size();
+            }
+        }
+    }
+
+    // Free a seat and give it to the first user in line, who keeps their place if it cannot be assigned
+    public Optional<WaitlistEntry> release(String trainId, String date, int row, int col, Runnable freeSeat) {
+        long releasedAt = System.nanoTime();
+        long start = Metric.WAITLIST_PROMOTION.start();
+        String key = key(trainId, date);
+        while (true) {
+            Line line = lines.computeIfAbsent(key, k -> new Line());
+            WaitlistEntry promoted = null;
+            synchronized (line) {
+                if (line.retired) continue;
+                freeSeat.run();
+                WaitlistEntry next = line.queue.peek();
+                if (next != null && next.assign(row, col)) {
+                    promoted = line.queue.poll();
+                }
+                retireIfEmpty(key, line);
+            }
+            if (promoted != null) {
+                deliver(new Promotion(promoted, row, col, releasedAt), start);
+            }
+            return Optional.ofNullable(promoted);
+        }
+    }
+
+    // Remove a user from a queue; false if they were not waiting
+    public boolean leave(String trainId, String date, String userId) {
+        String key = key(trainId, date);
+        Line line = lines.get(key);
+        if (line == null) return false;
+        synchronized (line) {
+            boolean removed = line.queue.removeIf(entry -> entry.getUserId().equals(userId));
+            retireIfEmpty(key, line);
+            return removed;
+        }
+    }
+
+    // Number of users waiting for a train on a date
+    public int waiting(String trainId, String date) {
+        Line line = lines.get(key(trainId, date));
+        if (line == null) return 0;
+        synchronized (line) {
+            return line.queue.size();
+        }
+    }
+
+    @Override
+    public void close() {
+        notifier.shutdown();
+        try {
+            notifier.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void deliver(Promotion promotion, long start) {
+        notifier.execute(() -> {
+            for (PromotionListener listener : listeners) {
+                try {
+                    listener.promoted(promotion);
+                } catch (RuntimeException e) {
+                    System.out.println("Waitlist listener failed: " + e.getMessage());
+                }
+            }
+            Metric.WAITLIST_PROMOTION.stop(start);
+        });
+    }
+
+    // Drop empty lines so the map does not keep one per train and day forever (caller holds the lock)
+    private void retireIfEmpty(String key, Line line) {
+        if (line.queue.isEmpty()) {
+            line.retired = true;
+            lines.remove(key, line);
+        }
+    }
+
+    private static String key(String trainId, String date) {
+        return trainId + '|' + date;
+    }
+
+    private static final class Line {
+        final ArrayDeque<WaitlistEntry> queue = new ArrayDeque<>();
+        boolean retired;
+    }
+}
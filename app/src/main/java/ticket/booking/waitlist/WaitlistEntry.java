@@ -0,0 +1,33 @@
+package ticket.booking.waitlist;
+
+// A user queued for a seat on one train and travel date
+public class WaitlistEntry {
+
+    private final String trainId;
+    private final String date;
+    private final String userId;
+    private final Waitlist.SeatAssignment assignment;
+
+    WaitlistEntry(String trainId, String date, String userId, Waitlist.SeatAssignment assignment) {
+        this.trainId = trainId;
+        this.date = date;
+        this.userId = userId;
+        this.assignment = assignment;
+    }
+
+    public String getTrainId() {
+        return trainId;
+    }
+
+    public String getDate() {
+        return date;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    boolean assign(int row, int col) {
+        return assignment.assign(row, col);
+    }
+}
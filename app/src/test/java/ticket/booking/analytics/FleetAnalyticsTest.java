@@ -0,0 +1,107 @@
+package ticket.booking.analytics;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ticket.booking.bench.BenchData;
+import ticket.booking.entities.Train;
+import ticket.booking.service.TrainService;
+import ticket.booking.storage.SeatInventoryFile;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class FleetAnalyticsTest {
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test public void parallelAggregatesMatchASequentialWalk() {
+        List<Train> trains = BenchData.trains(5_000, 3);
+        Random random = new Random(4);
+        for (Train train : trains) {
+            for (List<Integer> row : train.getSeats()) {
+                for (int c = 0; c < row.size(); c++) {
+                    row.set(c, random.nextInt(3) == 0 ? 1 : 0);
+                }
+            }
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            FleetAnalytics analytics = new TrainService(trains).analytics(pool);
+            double[] occupancy = analytics.occupancy();
+            long free = 0;
+            Map<String, Long> pairs = new HashMap<>();
+            for (int t = 0; t < trains.size(); t++) {
+                Train train = trains.get(t);
+                int booked = 0;
+                for (List<Integer> row : train.getSeats()) {
+                    booked += (int) row.stream().filter(seat -> seat == 1).count();
+                }
+                assertEquals(train.getTrainId(), analytics.trainId(t));
+                assertEquals(booked / 24.0, occupancy[t], 1e-9);
+                free += 24 - booked;
+                for (int s = 0; s + 1 < train.getStations().size(); s++) {
+                    pairs.merge(train.getStations().get(s) + " -> " + train.getStations().get(s + 1), (long) booked, Long::sum);
+                }
+            }
+
+            assertEquals(free, analytics.totalFreeSeats());
+            long routeFree = analytics.freeSeatsByRoute().stream().mapToLong(StationPairTotal::getTotal).sum();
+            assertEquals(free, routeFree);
+
+            List<StationPairTotal> busiest = analytics.busiestStationPairs(10);
+            assertEquals(10, busiest.size());
+            long top = pairs.values().stream().mapToLong(Long::longValue).max().getAsLong();
+            assertEquals(top, busiest.get(0).getTotal());
+            for (StationPairTotal pair : busiest) {
+                assertEquals((long) pairs.get(pair.getFrom() + " -> " + pair.getTo()), pair.getTotal());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test public void routesAreRebuiltOnlyWhenTheTimetableChanges() {
+        List<Train> trains = BenchData.trains(10, 3);
+        TrainService trainService = new TrainService(trains);
+        FleetAnalytics before = trainService.analytics();
+        assertEquals(0, before.bookedSeats(4));
+
+        trains.get(4).getSeats().get(0).set(0, 1);  // a booking edits the matrix in place
+        FleetAnalytics booked = trainService.analytics();
+        assertEquals(1, booked.bookedSeats(4));
+        assertSame("seats are recaptured, routes reused", before.routes(), booked.routes());
+
+        trainService.addTrain(new Train("new", "1", BenchData.emptySeats(), null, Arrays.asList("x", "y")));
+        FleetAnalytics analytics = trainService.analytics();
+        assertNotSame(before.routes(), analytics.routes());
+        assertEquals(11, analytics.trainCount());
+        assertEquals("x", analytics.freeSeatsByRoute().stream()
+                .filter(route -> route.getTo().equals("y")).findFirst().get().getFrom());
+    }
+
+    // With -Dbooking.seats.file the bookings are only in the mapped bitmaps, not the seat matrices
+    @Test public void seatsComeFromTheInventoryWhenItHoldsTheTrain() throws Exception {
+        List<Train> trains = BenchData.trains(10, 3);
+        TrainService trainService = new TrainService(trains);
+        try (SeatInventoryFile inventory = SeatInventoryFile.create(folder.getRoot().toPath().resolve("seats.bin"),
+                trains.subList(0, 5))) {
+            assertTrue(inventory.claim(trains.get(2).getTrainId(), 1, 1));
+            assertTrue(inventory.claim(trains.get(2).getTrainId(), 3, 5));
+            trains.get(7).getSeats().get(0).set(0, 1);  // not in the inventory: read from its matrix
+
+            FleetAnalytics analytics = trainService.analytics(ForkJoinPool.commonPool(), inventory);
+            assertEquals(2, analytics.bookedSeats(2));
+            assertEquals(1, analytics.bookedSeats(7));
+            assertEquals(10 * 24 - 3, analytics.totalFreeSeats());
+            assertEquals(0, trainService.analytics().bookedSeats(2));
+        }
+    }
+}
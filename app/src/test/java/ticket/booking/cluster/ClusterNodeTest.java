@@ -0,0 +1,165 @@
+package ticket.booking.cluster;
+
+import org.junit.After;
+import org.junit.Test;
+import ticket.booking.bench.BenchData;
+import ticket.booking.entities.Train;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class ClusterNodeTest {
+
+    private final List<ClusterNode> nodes = new ArrayList<>();
+
+    @After public void stopNodes() throws Exception {
+        for (ClusterNode node : nodes) {
+            node.close();
+        }
+    }
+
+    @Test public void ringMovesOnlyAFractionOfTrainsOnJoin() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("a:1", "b:2", "c:3"));
+        ConsistentHashRing grown = ring.with("d:4");
+
+        int moved = 0, total = 10_000;
+        for (int i = 0; i < total; i++) {
+            String before = ring.ownerOf(BenchData.trainId(i));
+            String after = grown.ownerOf(BenchData.trainId(i));
+            if (!before.equals(after)) {
+                moved++;
+                assertEquals("trains may only move to the new node", "d:4", after);
+            }
+        }
+        assertTrue("about a quarter should move, got " + moved, moved > total / 8 && moved < total / 2);
+    }
+
+    @Test public void trainsArePartitionedAndRequestsAreForwarded() throws Exception {
+        List<Train> trains = BenchData.trains(200, 3);
+        ClusterNode first = start(trains);
+        ClusterNode second = start(List.of());
+        ClusterNode third = start(List.of());
+        second.join(first.getNodeId());
+        third.join(first.getNodeId());
+
+        assertEquals(3, first.getMembers().size());
+        assertEquals(first.getMembers(), third.getMembers());
+        assertEquals(200, first.ownedTrainCount() + second.ownedTrainCount() + third.ownedTrainCount());
+        assertTrue(first.ownedTrainCount() > 0 && second.ownedTrainCount() > 0 && third.ownedTrainCount() > 0);
+
+        // Every train is bookable exactly once, whichever node receives the request
+        try (ClusterClient client = new ClusterClient(second.getNodeId())) {
+            for (Train train : trains) {
+                assertTrue(first.book(train.getTrainId(), 0, 0));
+                assertFalse(client.book(train.getTrainId(), 0, 0));
+            }
+            assertTrue(client.cancel(trains.get(5).getTrainId(), 0, 0));
+        }
+
+        // Search fans out to all nodes and merges
+        String[] route = {trains.get(0).getStations().get(0), trains.get(0).getStations().get(1)};
+        List<String> expected = trains.stream()
+                .filter(t -> t.getStations().indexOf(route[0]) >= 0
+                        && t.getStations().indexOf(route[0]) < t.getStations().indexOf(route[1]))
+                .map(Train::getTrainId).sorted().collect(Collectors.toList());
+        List<String> found = third.search(route[0], route[1]).stream()
+                .map(Train::getTrainId).sorted().collect(Collectors.toList());
+        assertEquals(expected, found);
+    }
+
+    @Test public void leavingNodeHandsOffItsTrains() throws Exception {
+        List<Train> trains = BenchData.trains(100, 4);
+        ClusterNode first = start(trains);
+        ClusterNode second = start(List.of());
+        second.join(first.getNodeId());
+        assertTrue(first.book(trains.get(0).getTrainId(), 1, 1));
+        assertTrue(first.book(trains.get(1).getTrainId(), 1, 1));
+
+        second.leave();
+        nodes.remove(second);
+
+        assertEquals(List.of(first.getNodeId()), first.getMembers());
+        assertEquals(100, first.ownedTrainCount());
+        assertFalse("booking state must survive the handoff", first.book(trains.get(0).getTrainId(), 1, 1));
+        assertFalse(first.book(trains.get(1).getTrainId(), 1, 1));
+    }
+
+    // Clients keep booking and cancelling through a rebalance. Each client owns one seat
+    // column, so it knows the true state of its seats: every answer must match it, and
+    // every confirmed change must still hold afterwards.
+    @Test public void bookingsDuringJoinAndLeaveAreNeverLostOrMisreported() throws Exception {
+        List<Train> trains = BenchData.trains(40, 5);
+        ClusterNode first = start(trains);
+        ClusterNode second = start(List.of());
+        Set<String> booked = ConcurrentHashMap.newKeySet();
+        AtomicReference<String> failure = new AtomicReference<>();
+        AtomicBoolean stop = new AtomicBoolean();
+
+        Thread[] clients = new Thread[4];
+        for (int c = 0; c < clients.length; c++) {
+            int col = c;
+            clients[c] = new Thread(() -> {
+                Random random = new Random(col);
+                try (ClusterClient client = new ClusterClient(first.getNodeId())) {
+                    while (!stop.get()) {
+                        String trainId = trains.get(random.nextInt(trains.size())).getTrainId();
+                        int row = random.nextInt(BenchData.SEAT_ROWS);
+                        String seat = trainId + "/" + row + "/" + col;
+                        boolean held = booked.contains(seat);
+                        try {
+                            if (held ? client.cancel(trainId, row, col) : client.book(trainId, row, col)) {
+                                if (held) booked.remove(seat); else booked.add(seat);
+                            } else {
+                                failure.set((held ? "cancel" : "book") + " of " + seat + " wrongly refused");
+                            }
+                        } catch (IOException e) {
+                            // train in flight; a real caller would retry
+                        }
+                    }
+                }
+            });
+            clients[c].start();
+        }
+
+        Thread.sleep(20);
+        second.join(first.getNodeId());
+        Thread.sleep(50);
+        second.leave();
+        nodes.remove(second);
+        stop.set(true);
+        for (Thread client : clients) {
+            client.join();
+        }
+
+        assertNull(failure.get());
+        assertEquals(40, first.ownedTrainCount());
+        for (Train train : trains) {
+            for (int r = 0; r < BenchData.SEAT_ROWS; r++) {
+                for (int c = 0; c < clients.length; c++) {
+                    String seat = train.getTrainId() + "/" + r + "/" + c;
+                    assertEquals(seat, !booked.contains(seat), first.book(train.getTrainId(), r, c));
+                }
+            }
+        }
+    }
+
+    @Test public void unknownTrainIsStillJustUnavailable() throws Exception {
+        ClusterNode node = start(BenchData.trains(3, 1));
+        assertFalse(node.book("no-such-train", 0, 0));
+    }
+
+    private ClusterNode start(List<Train> trains) throws Exception {
+        ClusterNode node = new ClusterNode(0, trains);
+        nodes.add(node);
+        return node;
+    }
+}
@@ -0,0 +1,123 @@
+package ticket.booking.engine;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ticket.booking.bench.BenchData;
+import ticket.booking.entities.Train;
+import ticket.booking.service.TrainService;
+import ticket.booking.storage.LocalDbStore;
+import ticket.booking.storage.StorageFormat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ShardedBookingEngineTest {
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test public void bookAndCancelGoThroughOwningShard() {
+        List<Train> trains = BenchData.trains(50, 1);
+        String trainId = trains.get(7).getTrainId();
+
+        try (ShardedBookingEngine engine = new ShardedBookingEngine(trains, 4)) {
+            assertTrue(engine.book(trainId, 1, 2).join());
+            assertFalse("seat is already booked", engine.book(trainId, 1, 2).join());
+            assertEquals(1, (int) engine.seats(trainId).join().get(1).get(2));
+
+            assertTrue(engine.cancel(trainId, 1, 2).join());
+            assertFalse("seat is already free", engine.cancel(trainId, 1, 2).join());
+            assertFalse(engine.book("unknown", 0, 0).join());
+            assertFalse(engine.book(trainId, 99, 0).join());
+        }
+    }
+
+    @Test public void concurrentClientsNeverDoubleBook() throws Exception {
+        List<Train> trains = BenchData.trains(20, 1);
+        int seats = BenchData.SEAT_ROWS * BenchData.SEAT_COLS;
+
+        try (ShardedBookingEngine engine = new ShardedBookingEngine(trains, 3)) {
+            List<CompletableFuture<Boolean>> results = new ArrayList<>();
+            Thread[] clients = new Thread[6];
+            for (int t = 0; t < clients.length; t++) {
+                List<CompletableFuture<Boolean>> mine = new ArrayList<>();
+                clients[t] = new Thread(() -> {
+                    for (Train train : trains) {
+                        for (int s = 0; s < seats; s++) {
+                            mine.add(engine.book(train.getTrainId(), s / BenchData.SEAT_COLS, s % BenchData.SEAT_COLS));
+                        }
+                    }
+                    synchronized (results) {
+                        results.addAll(mine);
+                    }
+                });
+                clients[t].start();
+            }
+            for (Thread client : clients) {
+                client.join();
+            }
+
+            long wins = results.stream().filter(CompletableFuture::join).count();
+            assertEquals(trains.size() * seats, wins);
+        }
+    }
+
+    @Test public void closedEngineRejectsRequests() {
+        ShardedBookingEngine engine = new ShardedBookingEngine(BenchData.trains(1, 1), 2);
+        engine.close();
+        assertTrue(engine.book(BenchData.trainId(0), 0, 0).isCompletedExceptionally());
+    }
+
+    @Test public void requestsRacingCloseAlwaysComplete() throws Exception {
+        for (int round = 0; round < 50; round++) {
+            ShardedBookingEngine engine = new ShardedBookingEngine(BenchData.trains(4, 1), 2);
+            List<CompletableFuture<Boolean>> results = new ArrayList<>();
+            Thread client = new Thread(() -> {
+                for (int i = 0; i < 2_000; i++) {
+                    results.add(engine.book(BenchData.trainId(i % 4), i % BenchData.SEAT_ROWS, i % BenchData.SEAT_COLS));
+                }
+            });
+            client.start();
+            engine.close();
+            client.join();
+            for (CompletableFuture<Boolean> result : results) {
+                // Either processed or failed as closed, never left pending
+                result.handle((booked, error) -> true).get(5, TimeUnit.SECONDS);
+            }
+        }
+    }
+
+    @Test public void flushAndCloseSaveSeatsThroughTrainService() throws Exception {
+        LocalDbStore<List<Train>> store = trainStore();
+        store.save(BenchData.trains(8, 1));
+        String trainId = BenchData.trainId(3);
+
+        ShardedBookingEngine engine = new ShardedBookingEngine(new TrainService(store), 3);
+        assertTrue(engine.book(trainId, 0, 1).join());
+        assertTrue(engine.flush());
+        assertFalse("nothing changed since the last flush", engine.flush());
+        assertEquals(1, (int) storedSeats(trainId).get(0).get(1));
+
+        assertTrue(engine.book(trainId, 2, 3).join());
+        assertTrue(engine.cancel(trainId, 0, 1).join());
+        engine.close();
+        assertFalse("closed engine has nothing left to flush", engine.flush());
+
+        List<List<Integer>> seats = storedSeats(trainId);
+        assertEquals(0, (int) seats.get(0).get(1));
+        assertEquals(1, (int) seats.get(2).get(3));
+    }
+
+    private LocalDbStore<List<Train>> trainStore() {
+        return new LocalDbStore<>(folder.getRoot(), "trains", StorageFormat.JSON, new TypeReference<>() {});
+    }
+
+    private List<List<Integer>> storedSeats(String trainId) throws Exception {
+        return new TrainService(trainStore()).findTrain(trainId).orElseThrow().getSeats();
+    }
+}
@@ -0,0 +1,53 @@
+package ticket.booking.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LatencyRecorderTest {
+
+    @Test public void bucketsAreMonotonicAndCoverTheirValues() {
+        int previous = -1;
+        for (long value = 0; value < 1_000_000; value += 37) {
+            int index = LatencyRecorder.bucketIndex(value);
+            assertTrue("bucket index should never decrease", index >= previous);
+            previous = index;
+        }
+        assertTrue(LatencyRecorder.bucketIndex(Long.MAX_VALUE) >= previous);
+    }
+
+    @Test public void percentilesStayWithinRelativeError() {
+        LatencyRecorder recorder = new LatencyRecorder();
+        for (long i = 1; i <= 10_000; i++) {
+            recorder.record(i * 1_000);  // 1us .. 10ms
+        }
+
+        assertEquals(10_000, recorder.getCount());
+        assertEquals(5_000_000, recorder.valueAtPercentile(50), 5_000_000 * 0.04);
+        assertEquals(9_900_000, recorder.valueAtPercentile(99), 9_900_000 * 0.04);
+        assertEquals(10_000.0, recorder.getMaxMicros(), 0.001);
+        assertEquals(5_000.5, recorder.getMeanMicros(), 0.001);
+    }
+
+    @Test public void resetClearsEverything() {
+        LatencyRecorder recorder = new LatencyRecorder();
+        recorder.record(123);
+        recorder.markError();
+        recorder.reset();
+
+        assertEquals(0, recorder.getCount());
+        assertEquals(0, recorder.getErrorCount());
+        assertEquals(0, recorder.valueAtPercentile(99));
+    }
+
+    @Test public void disabledMetricsRecordNothing() {
+        Metrics.setEnabled(false);
+        try {
+            Metric.SEARCH_SCAN.getRecorder().reset();
+            Metric.SEARCH_SCAN.stop(Metric.SEARCH_SCAN.start());
+            assertEquals(0, Metric.SEARCH_SCAN.getRecorder().getCount());
+        } finally {
+            Metrics.setEnabled(true);
+        }
+    }
+}
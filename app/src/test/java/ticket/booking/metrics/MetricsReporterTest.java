@@ -0,0 +1,46 @@
+package ticket.booking.metrics;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class MetricsReporterTest {
+
+    @After public void clearProperties() {
+        System.clearProperty("booking.metrics.dumpSeconds");
+        System.clearProperty("booking.metrics.format");
+    }
+
+    @Test public void unknownFormatFallsBackToText() {
+        System.setProperty("booking.metrics.dumpSeconds", "3600");
+        System.setProperty("booking.metrics.format", "xml");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bytes, true, StandardCharsets.UTF_8);
+
+        try (MetricsReporter reporter = MetricsReporter.fromSystemProperties(out)) {
+            assertNotNull(reporter);
+            reporter.report();
+        }
+
+        String printed = bytes.toString(StandardCharsets.UTF_8);
+        assertTrue(printed, printed.contains("Unknown metrics format 'xml', using text"));
+        assertTrue("text table, not JSON", printed.contains("mean(us)"));
+    }
+
+    @Test public void formatIsCaseInsensitive() {
+        System.setProperty("booking.metrics.dumpSeconds", "3600");
+        System.setProperty("booking.metrics.format", "Json");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (MetricsReporter reporter = MetricsReporter.fromSystemProperties(new PrintStream(bytes, true, StandardCharsets.UTF_8))) {
+            reporter.report();
+        }
+
+        assertFalse(bytes.toString(StandardCharsets.UTF_8).contains("Unknown metrics format"));
+    }
+}
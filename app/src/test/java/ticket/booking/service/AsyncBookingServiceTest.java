@@ -0,0 +1,112 @@
+package ticket.booking.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mindrot.jbcrypt.BCrypt;
+import ticket.booking.bench.BenchData;
+import ticket.booking.entities.Ticket;
+import ticket.booking.entities.Train;
+import ticket.booking.entities.User;
+import ticket.booking.metrics.Metric;
+import ticket.booking.metrics.Metrics;
+import ticket.booking.storage.LocalDbStore;
+import ticket.booking.storage.StorageFormat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.*;
+
+public class AsyncBookingServiceTest {
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    private LocalDbStore<List<User>> userStore;
+    private LocalDbStore<List<Train>> trainStore;
+    private TrainService trainService;
+    private AsyncBookingService service;
+
+    @Before public void setUp() throws Exception {
+        userStore = new LocalDbStore<>(folder.getRoot(), "users", StorageFormat.JSON, new TypeReference<List<User>>() {});
+        trainStore = new LocalDbStore<>(folder.getRoot(), "trains", StorageFormat.JSON, new TypeReference<List<Train>>() {});
+        trainStore.save(BenchData.trains(20, 5));
+        trainService = new TrainService(trainStore);
+        service = new AsyncBookingService(trainService, userStore, 2);
+    }
+
+    @After public void tearDown() {
+        service.close();
+    }
+
+    @Test public void signUpAndLogin() {
+        User alice = new User("u1", "alice", null, BCrypt.hashpw("secret", BCrypt.gensalt(4)), new ArrayList<>());
+
+        assertTrue(service.signUp(alice).join());
+        assertFalse("duplicate names are rejected", service.signUp(alice).join());
+        assertTrue(service.login("alice", "secret").join().isPresent());
+        assertFalse(service.login("alice", "wrong").join().isPresent());
+        assertFalse(service.login("nobody", "secret").join().isPresent());
+    }
+
+    @Test public void concurrentBookingsOfOneSeatHaveOneWinnerAndArePersisted() throws Exception {
+        User bob = new User("u2", "bob", null, BCrypt.hashpw("pw", BCrypt.gensalt(4)), new ArrayList<>());
+        service.signUp(bob).join();
+        List<String> route = BenchData.trains(20, 5).get(0).getStations();
+        Train train = service.searchTrains(route.get(0), route.get(1)).join().get(0);
+
+        List<CompletableFuture<Optional<Ticket>>> attempts = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            attempts.add(service.book(bob, train, 2, 3));
+        }
+        long winners = attempts.stream().map(CompletableFuture::join).filter(Optional::isPresent).count();
+        assertEquals(1, winners);
+
+        // The future completed only after the group commit hit the disk
+        User stored = userStore.load().get(0);
+        assertEquals(1, stored.getTicketsBooked().size());
+        Train storedTrain = trainStore.load().stream()
+                .filter(t -> t.getTrainId().equals(train.getTrainId())).findFirst().orElseThrow();
+        assertEquals(1, (int) storedTrain.getSeats().get(2).get(3));
+
+        String ticketId = bob.getTicketsBooked().get(0).getTicketId();
+        assertTrue(service.cancel(bob, ticketId).join());
+        assertFalse(service.cancel(bob, ticketId).join());
+        assertTrue("seat is free again", service.book(bob, train, 2, 3).join().isPresent());
+    }
+
+    @Test public void failedGroupCommitIsRecordedAsAnErrorAndUndone() throws Exception {
+        User carol = new User("u3", "carol", null, BCrypt.hashpw("pw", BCrypt.gensalt(4)), new ArrayList<>());
+        service.signUp(carol).join();
+        Train copy = new TrainService(trainStore).getTrains().get(0);  // not the service's instance
+        // A directory where the users file should be makes every save fail
+        assertTrue(userStore.getFile().delete() && userStore.getFile().mkdir());
+
+        Metrics.setEnabled(true);
+        Metrics.resetAll();
+        try {
+            CompletableFuture<Optional<Ticket>> booking = service.book(carol, copy, 0, 0);
+            assertTrue(booking.handle((ticket, error) -> error != null).join());
+            assertEquals(1, Metric.BOOK.getRecorder().getCount());
+            assertEquals(1, Metric.BOOK.getRecorder().getErrorCount());
+        } finally {
+            Metrics.resetAll();
+        }
+
+        Train live = trainService.findTrain(copy.getTrainId()).orElseThrow();
+        assertEquals("the seat is free again", 0, (int) live.getSeats().get(0).get(0));
+        assertTrue(carol.getTicketsBooked().isEmpty());
+
+        // Once saves work again, a retry gets the seat and it reaches the file
+        assertTrue(userStore.getFile().delete());
+        assertTrue(service.book(carol, copy, 0, 0).join().isPresent());
+        Train stored = trainStore.load().stream()
+                .filter(t -> t.getTrainId().equals(copy.getTrainId())).findFirst().orElseThrow();
+        assertEquals(1, (int) stored.getSeats().get(0).get(0));
+    }
+}
@@ -0,0 +1,132 @@
+package ticket.booking.service;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ticket.booking.bench.BenchData;
+import ticket.booking.entities.Ticket;
+import ticket.booking.entities.Train;
+import ticket.booking.entities.User;
+import ticket.booking.storage.StorageFormat;
+import ticket.booking.storage.TicketArchive;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class BookingHistoryServiceTest {
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 1, 15);
+
+    @Test public void pastTripsMoveToTheArchive() throws Exception {
+        TicketArchive archive = new TicketArchive(folder.getRoot(), StorageFormat.JSON);
+        BookingHistoryService history = new BookingHistoryService(archive);
+        User user = userWithTickets(30, 10);
+
+        assertEquals(30, history.archivePastTrips(user, TODAY));
+        assertEquals(10, user.getTicketsBooked().size());
+        assertTrue(archive.hasArchive(user.getUserId()));
+        assertNull("archived copies drop the seat matrix", archive.load(user.getUserId()).get(0).getTrain().getSeats());
+        assertEquals(0, history.archivePastTrips(user, TODAY));
+    }
+
+    @Test public void archivedTicketsCanBeRemoved() throws Exception {
+        BookingHistoryService history = new BookingHistoryService(new TicketArchive(folder.getRoot(), StorageFormat.JSON));
+        User user = userWithTickets(3, 1);
+        history.archivePastTrips(user, TODAY);
+        assertEquals(4, history.page(user, null, 10, true).getTickets().size());  // caches the archive
+
+        String archivedId = history.page(user, null, 1, true).getTickets().get(0).getTicketId();
+        assertTrue(history.removeArchived(user, archivedId));
+        assertFalse(history.removeArchived(user, archivedId));
+        assertEquals(3, history.page(user, null, 10, true).getTickets().size());
+    }
+
+    @Test public void cursorsWalkEveryTicketInTravelDateOrder() throws Exception {
+        BookingHistoryService history = new BookingHistoryService(new TicketArchive(folder.getRoot(), StorageFormat.JSON));
+        User user = userWithTickets(23, 7);
+        history.archivePastTrips(user, TODAY);
+
+        List<Ticket> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            BookingPage page = history.page(user, cursor, 4, true);
+            assertTrue(page.getTickets().size() <= 4);
+            seen.addAll(page.getTickets());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(30, seen.size());
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < seen.size(); i++) {
+            assertTrue("no ticket is returned twice", ids.add(seen.get(i).getTicketId()));
+            if (i > 0) {
+                assertTrue(seen.get(i - 1).getDateOfTravel().compareTo(seen.get(i).getDateOfTravel()) <= 0);
+            }
+        }
+    }
+
+    @Test public void hotPagesDoNotTouchTheArchive() throws Exception {
+        User user = userWithTickets(5, 3);
+        new BookingHistoryService(new TicketArchive(folder.getRoot(), StorageFormat.JSON)).archivePastTrips(user, TODAY);
+        BookingHistoryService history = new BookingHistoryService(new TicketArchive(folder.getRoot(), StorageFormat.JSON) {
+            @Override public List<Ticket> load(String userId) {
+                throw new AssertionError("archive read for a hot page");
+            }
+        });
+
+        BookingPage page = history.page(user, null, 10, false);
+        assertEquals(3, page.getTickets().size());
+        assertFalse(page.hasMore());
+    }
+
+    @Test public void archiveIsReadOnceUntilMoreTripsAreArchived() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        BookingHistoryService history = new BookingHistoryService(new TicketArchive(folder.getRoot(), StorageFormat.JSON) {
+            @Override public List<Ticket> load(String userId) throws IOException {
+                loads.incrementAndGet();
+                return super.load(userId);
+            }
+        });
+        User user = userWithTickets(40, 4);
+        history.archivePastTrips(user, TODAY);
+        loads.set(0);
+
+        String cursor = null;
+        int pages = 0;
+        do {
+            cursor = history.page(user, cursor, 5, true).getNextCursor();
+            pages++;
+        } while (cursor != null);
+        assertEquals(9, pages);
+        assertEquals(1, loads.get());
+
+        // Archiving again drops the cached copy, so the new trips show up
+        user.getTicketsBooked().add(new Ticket("late", "u1", "a", "b", TODAY.minusDays(1).toString(),
+                BenchData.trains(1, 1).get(0), null, 0, 0));
+        history.archivePastTrips(user, TODAY);
+        assertEquals(45, history.page(user, null, 100, true).getTickets().size());
+    }
+
+    // `past` tickets dated before TODAY and `upcoming` ones on or after it, in shuffled order
+    private static User userWithTickets(int past, int upcoming) {
+        Train train = BenchData.trains(1, 1).get(0);
+        List<Ticket> tickets = new ArrayList<>();
+        for (int i = 0; i < past + upcoming; i++) {
+            LocalDate date = i < past ? TODAY.minusDays(1 + (i * 7L) % 400) : TODAY.plusDays(i % 5);
+            tickets.add(new Ticket("t" + i, "u1", "a", "b", date.toString(), train, null, 0, 0));
+        }
+        Collections.shuffle(tickets, new Random(3));
+        return new User("u1", "frequent", null, "hash", tickets);
+    }
+}
@@ -0,0 +1,142 @@
+package ticket.booking.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ticket.booking.bench.BenchData;
+import ticket.booking.entities.Train;
+import ticket.booking.storage.LocalDbStore;
+import ticket.booking.storage.StorageFormat;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class TrainServiceTest {
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test public void indexedSearchMatchesAFullScan() {
+        List<Train> trains = BenchData.trains(2_000, 5);
+        TrainService trainService = new TrainService(trains);
+        Random random = new Random(11);
+        for (int i = 0; i < 500; i++) {
+            String source = BenchData.station(random.nextInt(BenchData.STATION_POOL));
+            String destination = BenchData.station(random.nextInt(BenchData.STATION_POOL));
+            assertEquals(scan(trains, source, destination), trainService.searchTrains(source, destination));
+        }
+        assertTrue(trainService.searchTrains("nowhere", BenchData.station(1)).isEmpty());
+    }
+
+    @Test public void addTrainPublishesANewSnapshot() {
+        TrainService trainService = new TrainService(BenchData.trains(10, 5));
+        TimetableSnapshot before = trainService.getTimetable();
+
+        Train added = new Train("X1", "1", BenchData.emptySeats(), null, Arrays.asList("new-a", "new-b", "new-c"));
+        trainService.addTrain(added);
+        assertEquals(List.of(added), trainService.searchTrains("NEW-A", "new-c"));
+        assertTrue(trainService.searchTrains("new-c", "new-a").isEmpty());
+        assertTrue("old snapshot is untouched", before.search("new-a", "new-c").isEmpty());
+        assertEquals(11, trainService.getTrains().size());
+
+        Train rerouted = new Train("x1", "1", BenchData.emptySeats(), null, Arrays.asList("new-c", "new-d"));
+        trainService.addTrain(rerouted);
+        assertEquals(11, trainService.getTrains().size());
+        assertTrue(trainService.searchTrains("new-a", "new-c").isEmpty());
+        assertEquals(List.of(rerouted), trainService.searchTrains("new-c", "new-d"));
+    }
+
+    // Background saves (as from the async service's I/O thread) racing timetable updates
+    @Test public void concurrentSavesNeverLeaveAStaleFile() throws Exception {
+        AtomicInteger writers = new AtomicInteger();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        LocalDbStore<List<Train>> store = new LocalDbStore<>(folder.getRoot(), "trains", StorageFormat.JSON,
+                new TypeReference<List<Train>>() {}) {
+            @Override public void save(List<Train> trains) throws IOException {
+                if (writers.incrementAndGet() > 1) failure.set(new AssertionError("two writers on one file"));
+                try {
+                    Thread.sleep(1);  // widen the window a second writer would need
+                    super.save(trains);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    writers.decrementAndGet();
+                }
+            }
+        };
+        store.save(BenchData.trains(50, 3));
+        TrainService trainService = new TrainService(store);
+        List<Train> extra = BenchData.trains(100, 4).subList(50, 100);
+
+        Thread saver = new Thread(() -> {
+            try {
+                for (int i = 0; i < 50; i++) {
+                    trainService.saveTrains();
+                }
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        saver.start();
+        for (Train train : extra) {
+            trainService.addTrain(train);
+        }
+        saver.join();
+
+        assertNull(failure.get());
+        assertEquals("the last save holds the last update", 100, store.load().size());
+    }
+
+    @Test public void searchesRunWhileTheTimetableChanges() throws Exception {
+        List<Train> trains = BenchData.trains(500, 5);
+        TrainService trainService = new TrainService(trains);
+        String source = trains.get(0).getStations().get(0);
+        String destination = trains.get(0).getStations().get(1);
+        int expected = trainService.searchTrains(source, destination).size();
+
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            try {
+                while (!done.get()) {
+                    // Writers only add trains elsewhere, so this result never changes
+                    assertEquals(expected, trainService.searchTrains(source, destination).size());
+                }
+            } catch (Throwable t) {
+                failure.set(t);
+            }
+        });
+        reader.start();
+
+        List<Train> extra = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            Train train = new Train("extra-" + i, "0", null, null, Arrays.asList("e" + i, "e" + (i + 1)));
+            trainService.addTrain(train);
+            extra.add(train);
+        }
+        done.set(true);
+        reader.join();
+
+        assertNull(failure.get());
+        assertEquals(800, trainService.getTrains().size());
+        assertEquals(List.of(extra.get(42)), trainService.searchTrains("e42", "e43"));
+    }
+
+    private static List<Train> scan(List<Train> trains, String source, String destination) {
+        List<Train> result = new ArrayList<>();
+        for (Train train : trains) {
+            int from = train.getStations().indexOf(source);
+            int to = train.getStations().indexOf(destination);
+            if (from != -1 && to != -1 && from < to) result.add(train);
+        }
+        return result;
+    }
+}
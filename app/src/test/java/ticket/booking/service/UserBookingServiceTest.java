@@ -0,0 +1,111 @@
+package ticket.booking.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mindrot.jbcrypt.BCrypt;
+import ticket.booking.entities.Ticket;
+import ticket.booking.entities.Train;
+import ticket.booking.entities.User;
+import ticket.booking.storage.LocalDbStore;
+import ticket.booking.storage.TicketArchive;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class UserBookingServiceTest {
+
+    private static final String DIR_PROPERTY = "booking.localDb.dir";
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    private String previousDir;
+    private UserBookingService service;
+    private User alice;
+    private User bob;
+
+    @Before public void setUp() throws Exception {
+        // new TrainService() and new LocalDbStore(name, type) resolve against this directory
+        previousDir = System.setProperty(DIR_PROPERTY, folder.getRoot().getPath());
+
+        Map<String, String> times = new LinkedHashMap<>();
+        times.put("pune", "08:00:00");
+        times.put("mumbai", "11:00:00");
+        List<List<Integer>> seats = new ArrayList<>(List.of(new ArrayList<>(List.of(0, 0))));
+        new LocalDbStore<List<Train>>("trains", new TypeReference<>() {})
+                .save(List.of(new Train("T1", "101", seats, times, List.of("pune", "mumbai"))));
+
+        service = new UserBookingService();
+        String hash = BCrypt.hashpw("pw", BCrypt.gensalt(4));
+        alice = new User("u-alice", "alice", null, hash, new ArrayList<>());
+        bob = new User("u-bob", "bob", null, hash, new ArrayList<>());
+        assertTrue(service.signUp(alice));
+        assertTrue(service.signUp(bob));
+    }
+
+    @After public void restoreDir() {
+        if (previousDir == null) {
+            System.clearProperty(DIR_PROPERTY);
+        } else {
+            System.setProperty(DIR_PROPERTY, previousDir);
+        }
+    }
+
+    // cancelTicket -> Waitlist.release -> promote -> bookSeatFor, against the files on disk
+    @Test public void cancelledSeatGoesToTheWaitingUserOnce() throws Exception {
+        login(alice);
+        Train train = new TrainService().findTrain("T1").orElseThrow();
+        assertTrue(service.bookTrainSeat(train, 0, 0));
+        assertTrue(service.bookTrainSeat(train, 0, 1));
+
+        login(bob);
+        service.joinWaitlist(new TrainService().findTrain("T1").orElseThrow());
+        service.joinWaitlist(new TrainService().findTrain("T1").orElseThrow());  // already waiting, no second place
+
+        login(alice);
+        for (Ticket ticket : new ArrayList<>(alice.getTicketsBooked())) {
+            assertTrue(service.cancelTicket(alice, ticket));
+        }
+
+        assertTrue(alice.getTicketsBooked().isEmpty());
+        assertEquals(1, bob.getTicketsBooked().size());
+        Ticket promoted = bob.getTicketsBooked().get(0);
+        assertEquals(0, promoted.getSeatCol());
+
+        // Both the promotion and the second cancellation reached the files
+        List<Integer> storedSeats = new TrainService().findTrain("T1").orElseThrow().getSeats().get(0);
+        assertEquals(List.of(1, 0), storedSeats);
+        User storedBob = new LocalDbStore<List<User>>("users", new TypeReference<>() {}).load().stream()
+                .filter(u -> u.getName().equals("bob")).findFirst().orElseThrow();
+        assertEquals(promoted.getTicketId(), storedBob.getTicketsBooked().get(0).getTicketId());
+    }
+
+    // A train has one seat map for all dates, so a trip archived at login still holds its seat
+    @Test public void archivedTicketCanStillBeCancelled() throws Exception {
+        login(alice);
+        assertTrue(service.bookTrainSeat(new TrainService().findTrain("T1").orElseThrow(), 0, 1));
+        Ticket ticket = alice.getTicketsBooked().get(0);
+        ticket.setDateOfTravel("2020-01-01");
+
+        login(alice);  // archives past trips
+        assertTrue(alice.getTicketsBooked().isEmpty());
+        assertTrue(new TicketArchive().hasArchive(alice.getUserId()));
+
+        assertTrue(service.cancelTicket(alice, ticket));
+        assertFalse("cancelled only once", service.cancelTicket(alice, ticket));
+        assertEquals(List.of(0, 0), new TrainService().findTrain("T1").orElseThrow().getSeats().get(0));
+        assertTrue(new TicketArchive().load(alice.getUserId()).isEmpty());
+    }
+
+    private void login(User user) {
+        service.setCurrentUser(new User(null, user.getName(), "pw", "", new ArrayList<>()));
+        assertTrue(service.loginUser());
+    }
+}
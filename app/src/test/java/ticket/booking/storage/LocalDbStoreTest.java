@@ -0,0 +1,58 @@
+package ticket.booking.storage;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ticket.booking.bench.BenchData;
+import ticket.booking.entities.Train;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class LocalDbStoreTest {
+
+    private static final TypeReference<List<Train>> TRAINS = new TypeReference<>() {};
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test public void smileRoundTripIsLosslessAndSmaller() throws Exception {
+        File dir = folder.getRoot();
+        List<Train> trains = BenchData.trains(500, 1);
+        LocalDbStore<List<Train>> json = new LocalDbStore<>(dir, "trains", StorageFormat.JSON, TRAINS);
+        LocalDbStore<List<Train>> smile = new LocalDbStore<>(dir, "trains", StorageFormat.SMILE, TRAINS);
+
+        json.save(trains);
+        smile.save(trains);
+
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode expected = mapper.valueToTree(json.load());
+        JsonNode actual = mapper.valueToTree(smile.load());
+        assertEquals(expected, actual);
+        assertTrue("smile should be more compact", smile.getFile().length() < json.getFile().length());
+    }
+
+    @Test public void binaryStoreImportsExistingJson() throws Exception {
+        File dir = folder.getRoot();
+        new LocalDbStore<>(dir, "trains", StorageFormat.JSON, TRAINS).save(BenchData.trains(3, 1));
+
+        LocalDbStore<List<Train>> smile = new LocalDbStore<>(dir, "trains", StorageFormat.SMILE, TRAINS);
+        assertFalse(smile.getFile().exists());
+        assertEquals(3, smile.load().size());
+        assertTrue("import should write the binary snapshot", smile.getFile().exists());
+    }
+
+    @Test public void exportWritesPlainJson() throws Exception {
+        File dir = folder.getRoot();
+        LocalDbStore<List<Train>> smile = new LocalDbStore<>(dir, "trains", StorageFormat.SMILE, TRAINS);
+        smile.save(BenchData.trains(2, 1));
+
+        File exported = new File(dir, "export.json");
+        smile.exportJson(exported);
+        assertEquals(2, new ObjectMapper().readValue(exported, TRAINS).size());
+    }
+}
@@ -0,0 +1,129 @@
+package ticket.booking.storage;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ticket.booking.bench.BenchData;
+import ticket.booking.entities.Train;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class SeatInventoryFileTest {
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test public void createCopiesExistingSeatState() throws Exception {
+        List<Train> trains = BenchData.trains(10, 1);
+        trains.get(3).getSeats().get(2).set(5, 1);
+        Path file = folder.getRoot().toPath().resolve("seats.bin");
+
+        try (SeatInventoryFile inventory = SeatInventoryFile.create(file, trains)) {
+            assertEquals(10, inventory.trainCount());
+            assertTrue(inventory.isBooked(trains.get(3).getTrainId(), 2, 5));
+            assertFalse(inventory.isBooked(trains.get(3).getTrainId(), 0, 0));
+            assertEquals(trains.get(3).getSeats(), inventory.toSeatMatrix(trains.get(3).getTrainId()));
+        }
+    }
+
+    @Test public void claimsSurviveReopen() throws Exception {
+        List<Train> trains = BenchData.trains(5, 1);
+        String trainId = trains.get(1).getTrainId();
+        Path file = folder.getRoot().toPath().resolve("seats.bin");
+
+        try (SeatInventoryFile inventory = SeatInventoryFile.create(file, trains)) {
+            assertTrue(inventory.claim(trainId, 1, 1));
+            assertFalse("second claim of the same seat must fail", inventory.claim(trainId, 1, 1));
+            assertTrue(inventory.claim(trainId, 3, 5));
+            assertTrue(inventory.release(trainId, 3, 5));
+            assertFalse(inventory.claim(trainId, 9, 9));
+            assertFalse(inventory.claim("unknown", 0, 0));
+        }
+
+        try (SeatInventoryFile inventory = SeatInventoryFile.open(file)) {
+            assertTrue(inventory.isBooked(trainId, 1, 1));
+            assertFalse(inventory.isBooked(trainId, 3, 5));
+            assertEquals(BenchData.SEAT_ROWS * BenchData.SEAT_COLS - 1, inventory.freeSeats(trainId));
+        }
+    }
+
+    @Test public void concurrentClaimsHaveExactlyOneWinnerPerSeat() throws Exception {
+        List<Train> trains = BenchData.trains(1, 1);
+        String trainId = trains.get(0).getTrainId();
+        Path file = folder.getRoot().toPath().resolve("seats.bin");
+        int seats = BenchData.SEAT_ROWS * BenchData.SEAT_COLS;
+
+        try (SeatInventoryFile inventory = SeatInventoryFile.create(file, trains)) {
+            AtomicInteger wins = new AtomicInteger();
+            CountDownLatch go = new CountDownLatch(1);
+            Thread[] threads = new Thread[8];
+            for (int t = 0; t < threads.length; t++) {
+                threads[t] = new Thread(() -> {
+                    try {
+                        go.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int s = 0; s < seats; s++) {
+                        if (inventory.claim(trainId, s / BenchData.SEAT_COLS, s % BenchData.SEAT_COLS)) {
+                            wins.incrementAndGet();
+                        }
+                    }
+                });
+                threads[t].start();
+            }
+            go.countDown();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            assertEquals(seats, wins.get());
+            assertEquals(0, inventory.freeSeats(trainId));
+        }
+    }
+
+    @Test public void truncatedFileIsRejectedWithIOException() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("seats.bin");
+        SeatInventoryFile.create(file, BenchData.trains(5, 1)).close();
+        long size = Files.size(file);
+
+        // empty, inside the header, inside the index, inside the last bitmap
+        for (long length : new long[] {0, 12, 32 + 64 * 3, size - 4}) {
+            Path copy = folder.getRoot().toPath().resolve("short-" + length + ".bin");
+            Files.copy(file, copy);
+            try (FileChannel channel = FileChannel.open(copy, StandardOpenOption.WRITE)) {
+                channel.truncate(length);
+            }
+            try {
+                SeatInventoryFile.open(copy).close();
+                fail("opened a file cut to " + length + " bytes");
+            } catch (IOException expected) {
+                // reported as a bad file, not an IndexOutOfBoundsException
+            }
+        }
+    }
+
+    @Test public void layoutIsLittleEndianOnEveryPlatform() throws Exception {
+        List<Train> trains = BenchData.trains(3, 1);
+        Path file = folder.getRoot().toPath().resolve("seats.bin");
+        try (SeatInventoryFile inventory = SeatInventoryFile.create(file, trains)) {
+            assertTrue(inventory.claim(trains.get(0).getTrainId(), 0, 1));
+        }
+
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(0x53454154, bytes.getInt(0));
+        assertEquals(3, bytes.getInt(8));
+        long firstBitmap = bytes.getLong(32 + 56);
+        assertEquals(1L << 1, bytes.getLong((int) firstBitmap));
+    }
+}
@@ -0,0 +1,133 @@
+package ticket.booking.waitlist;
+
+import org.junit.Test;
+import ticket.booking.engine.SeatMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class WaitlistTest {
+
+    private static final String DATE = "2026-01-15";
+
+    @Test public void freedSeatsGoToWaitersInJoinOrder() throws Exception {
+        SeatMap seats = new SeatMap(1, 1);
+        seats.claim(0, 0);
+        List<String> seated = new ArrayList<>();
+        List<String> delivered = new ArrayList<>();
+
+        try (Waitlist waitlist = new Waitlist()) {
+            waitlist.addListener(promotion -> delivered.add(promotion.getEntry().getUserId()));
+            int expectedPosition = 1;
+            for (String user : List.of("ann", "bob", "cat")) {
+                int position = waitlist.join("T1", DATE, user, () -> seats.claim(0, 0), (row, col) -> {
+                    seated.add(user);
+                    return seats.claim(row, col);
+                });
+                assertEquals(expectedPosition++, position);
+            }
+            assertTrue(waitlist.leave("T1", DATE, "bob"));
+
+            assertEquals("ann", waitlist.release("T1", DATE, 0, 0, () -> seats.release(0, 0)).get().getUserId());
+            assertEquals("cat", waitlist.release("T1", DATE, 0, 0, () -> seats.release(0, 0)).get().getUserId());
+            assertFalse(waitlist.release("T1", DATE, 0, 0, () -> seats.release(0, 0)).isPresent());
+            assertEquals(0, seats.bookedSeats());
+
+            assertEquals("nobody waits, so the seat is booked right away",
+                    0, waitlist.join("T1", DATE, "dan", () -> seats.claim(0, 0), (row, col) -> false));
+            assertEquals(List.of("ann", "cat"), seated);
+        }
+        assertEquals("closing waits for deliveries", List.of("ann", "cat"), delivered);
+    }
+
+    @Test public void seatStaysWithTheQueueWhenAssignmentFails() {
+        try (Waitlist waitlist = new Waitlist()) {
+            waitlist.join("T1", DATE, "ann", () -> false, (row, col) -> false);
+            assertFalse(waitlist.release("T1", DATE, 0, 0, () -> {}).isPresent());
+            assertEquals("the waiter keeps their place", 1, waitlist.waiting("T1", DATE));
+        }
+    }
+
+    @Test public void aUserHoldsOnePlacePerLine() {
+        try (Waitlist waitlist = new Waitlist()) {
+            assertEquals(1, waitlist.join("T1", DATE, "ann", () -> false, (row, col) -> true));
+            assertEquals(Waitlist.ALREADY_WAITING, waitlist.join("T1", DATE, "ann", () -> false, (row, col) -> true));
+            assertEquals("other days are other lines", 1, waitlist.join("T1", "2026-01-16", "ann", () -> false, (row, col) -> true));
+            assertEquals(1, waitlist.waiting("T1", DATE));
+        }
+    }
+
+    // Many threads joining and cancelling on a few small trains at once
+    @Test public void churnNeverDoubleBooksOrLosesAPromotion() throws Exception {
+        int trains = 4, threads = 8, operations = 5_000;
+        SeatMap[] seatMaps = new SeatMap[trains];
+        List<ConcurrentLinkedQueue<int[]>> held = new ArrayList<>();  // seats someone holds, per train
+        for (int t = 0; t < trains; t++) {
+            seatMaps[t] = new SeatMap(2, 3);
+            held.add(new ConcurrentLinkedQueue<>());
+        }
+        AtomicInteger queued = new AtomicInteger(), promoted = new AtomicInteger(), delivered = new AtomicInteger();
+        AtomicReference<String> failure = new AtomicReference<>();
+
+        Waitlist waitlist = new Waitlist();
+        waitlist.addListener(promotion -> delivered.incrementAndGet());
+        Thread[] workers = new Thread[threads];
+        for (int w = 0; w < threads; w++) {
+            long seed = w;
+            workers[w] = new Thread(() -> {
+                Random random = new Random(seed);
+                for (int i = 0; i < operations; i++) {
+                    int t = random.nextInt(trains);
+                    String trainId = "T" + t;
+                    SeatMap seats = seatMaps[t];
+                    if (random.nextBoolean()) {
+                        // Runs under the line lock, so the seat map needs no lock of its own
+                        int position = waitlist.join(trainId, DATE, "u" + seed + "-" + i, () -> {
+                            for (int s = 0; s < seats.capacity(); s++) {
+                                if (seats.claim(s / 3, s % 3)) {
+                                    held.get(t).add(new int[]{s / 3, s % 3});
+                                    return true;
+                                }
+                            }
+                            return false;
+                        }, (row, col) -> {
+                            if (!seats.claim(row, col)) failure.set("promoted into a booked seat");
+                            held.get(t).add(new int[]{row, col});
+                            promoted.incrementAndGet();
+                            return true;
+                        });
+                        if (position > 0) queued.incrementAndGet();
+                    } else {
+                        int[] seat = held.get(t).poll();
+                        if (seat == null) continue;
+                        waitlist.release(trainId, DATE, seat[0], seat[1], () -> {
+                            if (!seats.release(seat[0], seat[1])) failure.set("released a free seat");
+                        });
+                    }
+                }
+            });
+            workers[w].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        waitlist.close();  // waits for pending deliveries
+
+        assertNull(failure.get());
+        assertEquals("every promotion is delivered exactly once", promoted.get(), delivered.get());
+        int waiting = 0;
+        for (int t = 0; t < trains; t++) {
+            int waitingHere = waitlist.waiting("T" + t, DATE);
+            assertTrue("no seat stays free while someone waits", waitingHere == 0 || seatMaps[t].freeSeats() == 0);
+            assertEquals(seatMaps[t].bookedSeats(), held.get(t).size());
+            waiting += waitingHere;
+        }
+        assertEquals(queued.get(), promoted.get() + waiting);
+    }
+}
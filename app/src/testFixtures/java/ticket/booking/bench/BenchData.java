@@ -0,0 +1,78 @@
+package ticket.booking.bench;
+
+import ticket.booking.entities.Train;
+import ticket.booking.entities.User;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+// Synthetic data sets shared by the benchmarks
+public final class BenchData {
+
+    public static final int STATION_POOL = 500;
+    public static final int STOPS_PER_TRAIN = 8;
+    public static final int SEAT_ROWS = 4;
+    public static final int SEAT_COLS = 6;
+
+    private BenchData() {}
+
+    public static String station(int index) {
+        return "station-" + index;
+    }
+
+    public static String trainId(int index) {
+        return String.format("T%07d", index);
+    }
+
+    // n trains, each stopping at STOPS_PER_TRAIN stations drawn from a shared pool
+    public static List<Train> trains(int n, long seed) {
+        Random random = new Random(seed);
+        List<Train> trains = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            List<String> stations = new ArrayList<>(STOPS_PER_TRAIN);
+            Map<String, String> stationTimes = new LinkedHashMap<>();
+            int stop = random.nextInt(STATION_POOL);
+            for (int s = 0; s < STOPS_PER_TRAIN; s++) {
+                stop = (stop + 1 + random.nextInt(7)) % STATION_POOL;
+                String name = station(stop);
+                if (stationTimes.containsKey(name)) continue;
+                stations.add(name);
+                stationTimes.put(name, String.format("%02d:%02d:00", (6 + s) % 24, random.nextInt(60)));
+            }
+            trains.add(new Train(trainId(i), String.valueOf(10000 + i), emptySeats(), stationTimes, stations));
+        }
+        return trains;
+    }
+
+    public static List<List<Integer>> emptySeats() {
+        List<List<Integer>> seats = new ArrayList<>(SEAT_ROWS);
+        for (int r = 0; r < SEAT_ROWS; r++) {
+            List<Integer> row = new ArrayList<>(SEAT_COLS);
+            for (int c = 0; c < SEAT_COLS; c++) {
+                row.add(0);
+            }
+            seats.add(row);
+        }
+        return seats;
+    }
+
+    // n users with a fixed (pre-computed) BCrypt hash so generation stays cheap
+    public static List<User> users(int n, String hashedPassword) {
+        List<User> users = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            users.add(new User("user-" + i, "user" + i, null, hashedPassword, new ArrayList<>()));
+        }
+        return users;
+    }
+
+    // Pick a random station pair that at least one train serves in order
+    public static String[] routeOf(Train train, Random random) {
+        List<String> stations = train.getStations();
+        int from = random.nextInt(stations.size() - 1);
+        int to = from + 1 + random.nextInt(stations.size() - from - 1);
+        return new String[]{stations.get(from), stations.get(to)};
+    }
+}